@@ -0,0 +1,32 @@
+package bg.sit_varna.sit.si.config.app;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+@ConfigMapping(prefix = "ingest")
+public interface IngestConfig {
+
+    BatchConfig batch();
+
+    StreamConfig stream();
+
+    interface BatchConfig {
+        @WithDefault("5000")
+        int maxSize();
+    }
+
+    interface StreamConfig {
+        @WithDefault("500")
+        int chunkSize();
+
+        @WithDefault("100")
+        int maxReportedErrors();
+
+        /**
+         * Upload size accepted by the stream route only; see {@code StreamBodyLimitConfig}.
+         */
+        @WithDefault("256M")
+        MemorySize maxBodySize();
+    }
+}
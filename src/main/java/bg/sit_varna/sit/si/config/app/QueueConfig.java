@@ -0,0 +1,188 @@
+package bg.sit_varna.sit.si.config.app;
+
+import bg.sit_varna.sit.si.constant.QueueTransport;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+@ConfigMapping(prefix = "queue")
+public interface QueueConfig {
+
+    @WithDefault("memory")
+    QueueTransport transport();
+
+    /**
+     * Hard bound of the in-memory buffer. Sends beyond it are rejected instead of growing the heap.
+     */
+    @WithDefault("10000")
+    int capacity();
+
+    /**
+     * Queue depth at which new requests are shed with 503. Should stay below {@link #capacity()}.
+     */
+    @WithDefault("8000")
+    int highWaterMark();
+
+    @WithDefault("5")
+    int retryAfterSeconds();
+
+    /**
+     * How long shutdown waits for queued and in-flight notifications before handing the rest off.
+     */
+    @WithDefault("25s")
+    Duration drainTimeout();
+
+    /**
+     * How long a streamed ingest waits for the queue to drain below the high-water mark before giving up.
+     */
+    @WithDefault("30s")
+    Duration ingestMaxWait();
+
+    LanesConfig lanes();
+
+    OutboxConfig outbox();
+
+    RecoveryConfig recovery();
+
+    OrderingConfig ordering();
+
+    ScheduleConfig schedule();
+
+    StreamConfig stream();
+
+    interface LanesConfig {
+        /**
+         * Templates routed to the high-priority lane when the request does not set a priority.
+         */
+        @WithDefault("sms/verification_code,email/password_reset,telegram/password_reset")
+        List<String> highPriorityTemplates();
+
+        /**
+         * Maximum notifications processed concurrently from the high-priority lane.
+         */
+        @WithDefault("32")
+        int highConcurrency();
+
+        /**
+         * Maximum notifications processed concurrently from the normal lane.
+         */
+        @WithDefault("64")
+        int normalConcurrency();
+    }
+
+    interface OutboxConfig {
+        /**
+         * When enabled, ingest only inserts the row and the outbox relay feeds the queue.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        @WithDefault("100")
+        int batchSize();
+
+        @WithDefault("1s")
+        Duration pollInterval();
+    }
+
+    interface RecoveryConfig {
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Rows QUEUED or PROCESSING without an update for this long are considered orphaned.
+         * Live pods refresh the rows they still hold on every pass, so this only has to outlast a few intervals.
+         */
+        @WithDefault("15m")
+        Duration staleAfter();
+
+        /**
+         * Each pass also marks this pod's queued rows as live, so it must be well below {@link #staleAfter()}.
+         */
+        @WithDefault("5m")
+        Duration interval();
+
+        @WithDefault("500")
+        int pageSize();
+    }
+
+    interface OrderingConfig {
+        /**
+         * Deliver notifications to the same recipient one at a time, in submission order.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Number of serial workers recipients are hashed onto; bounds overall concurrency in this mode.
+         */
+        @WithDefault("64")
+        int partitions();
+    }
+
+    interface ScheduleConfig {
+        /**
+         * Sorted set holding the id of every pending scheduled notification, scored by send time in epoch millis.
+         */
+        @WithDefault("notifications:scheduled")
+        String key();
+
+        /**
+         * Resolution of the timing wheel; scheduled sends fire at most this late.
+         */
+        @WithDefault("100ms")
+        Duration tick();
+
+        @WithDefault("512")
+        int wheelSize();
+
+        /**
+         * Only timers due within this window are held in memory; the rest stay in Redis until they come close.
+         */
+        @WithDefault("10m")
+        Duration horizon();
+
+        /**
+         * How often the horizon is refilled from Redis. Must be well below {@link #horizon()}.
+         */
+        @WithDefault("1m")
+        Duration loadInterval();
+
+        @WithDefault("1000")
+        int loadBatchSize();
+    }
+
+    interface StreamConfig {
+        @WithDefault("notifications:stream")
+        String key();
+
+        @WithDefault("notification-workers")
+        String group();
+
+        /**
+         * Consumer name inside the group. Must be unique per replica; defaults to the host name.
+         */
+        Optional<String> consumer();
+
+        @WithDefault("2s")
+        Duration blockTimeout();
+
+        /**
+         * Messages pending longer than this are claimed from the consumer that read them.
+         */
+        @WithDefault("5m")
+        Duration claimIdle();
+
+        @WithDefault("100")
+        int claimBatchSize();
+
+        /**
+         * Messages a replica may hold per lane, read but not yet acknowledged. Reading ahead of the
+         * workers gives the lane's tenant scheduler every tenant's pending work to choose from.
+         */
+        @WithDefault("512")
+        int prefetch();
+    }
+}
@@ -0,0 +1,71 @@
+package bg.sit_varna.sit.si.config.app;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.Router;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Gives the NDJSON ingest route its own body limit ({@code ingest.stream.max-body-size}) while every other
+ * route keeps {@code quarkus.http.limits.max-body-size}. The stream is read line by line, so its size only
+ * bounds the upload, not memory.
+ *
+ * <p>Quarkus applies the global limit in a single route at order -2: it rejects a declared
+ * {@code Content-Length} above the limit and caps chunked bodies through the {@code io.quarkus.max-request-size}
+ * context entry. The handlers around it hide the declared length from that check and then swap in the
+ * stream's own cap.</p>
+ */
+@ApplicationScoped
+public class StreamBodyLimitConfig {
+
+    private static final String STREAM_PATH = "/api/v1/notifications/send/stream";
+    private static final String MAX_REQUEST_SIZE = "io.quarkus.max-request-size";
+    private static final String DECLARED_LENGTH = "ingest.stream.content-length";
+
+    private final IngestConfig ingestConfig;
+
+    @Inject
+    public StreamBodyLimitConfig(IngestConfig ingestConfig) {
+        this.ingestConfig = ingestConfig;
+    }
+
+    void registerRoutes(@Observes Router router) {
+        long limit = ingestConfig.stream().maxBodySize().asLongValue();
+
+        router.route(HttpMethod.POST, STREAM_PATH).order(-3).handler(ctx -> {
+            String length = ctx.request().getHeader(HttpHeaders.CONTENT_LENGTH);
+            if (length != null) {
+                long declared;
+                try {
+                    declared = Long.parseLong(length);
+                } catch (NumberFormatException e) {
+                    // Left for the global check to reject
+                    ctx.next();
+                    return;
+                }
+                if (declared > limit) {
+                    ctx.response()
+                            .putHeader(HttpHeaders.CONNECTION, HttpHeaders.CLOSE)
+                            .setStatusCode(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code())
+                            .end();
+                    return;
+                }
+                ctx.put(DECLARED_LENGTH, length);
+                ctx.request().headers().remove(HttpHeaders.CONTENT_LENGTH);
+            }
+            ctx.next();
+        });
+
+        router.route(HttpMethod.POST, STREAM_PATH).order(-1).handler(ctx -> {
+            String length = ctx.get(DECLARED_LENGTH);
+            if (length != null) {
+                ctx.request().headers().set(HttpHeaders.CONTENT_LENGTH, length);
+            }
+            ctx.put(MAX_REQUEST_SIZE, limit);
+            ctx.next();
+        });
+    }
+}
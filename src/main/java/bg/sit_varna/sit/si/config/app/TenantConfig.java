@@ -0,0 +1,67 @@
+package bg.sit_varna.sit.si.config.app;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Products sharing this deployment. Each one identifies itself with the {@code X-API-Key} header and gets
+ * its own quotas at ingest and a fair share of the workers ({@code weight}) while they are contended.
+ */
+@ConfigMapping(prefix = "tenants")
+public interface TenantConfig {
+
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Reject requests without a known API key. When off, they run as the default tenant.
+     */
+    @WithDefault("false")
+    boolean requireApiKey();
+
+    @WithDefault("default")
+    String defaultTenant();
+
+    /**
+     * Limits of the default tenant and of every product that does not set its own.
+     */
+    TenantLimits defaults();
+
+    /**
+     * Keyed by tenant name, e.g. {@code tenants.products.billing.api-key}.
+     */
+    Map<String, Product> products();
+
+    interface Product {
+        String apiKey();
+
+        Optional<Integer> dailyQuota();
+
+        Optional<Integer> perMinute();
+
+        Optional<Integer> weight();
+    }
+
+    interface TenantLimits {
+        /**
+         * Notifications per UTC day.
+         */
+        @WithDefault("100000")
+        int dailyQuota();
+
+        /**
+         * Notifications per minute, as a sliding window.
+         */
+        @WithDefault("1000")
+        int perMinute();
+
+        /**
+         * Share of the workers under contention, relative to the other tenants' weights.
+         */
+        @WithDefault("1")
+        int weight();
+    }
+}
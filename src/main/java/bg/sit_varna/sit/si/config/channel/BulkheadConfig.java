@@ -0,0 +1,43 @@
+package bg.sit_varna.sit.si.config.channel;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Per-channel isolation limits for the async processor.
+ */
+@ConfigMapping(prefix = "bulkhead")
+public interface BulkheadConfig {
+
+    @WithDefault("true")
+    boolean enabled();
+
+    ChannelLimits email();
+
+    ChannelLimits sms();
+
+    ChannelLimits telegram();
+
+    interface ChannelLimits {
+        /**
+         * Maximum sends in flight to the provider at the same time.
+         */
+        @WithDefault("20")
+        int maxConcurrent();
+
+        /**
+         * Maximum notifications allowed to wait for a free slot once it is their turn. Beyond this they are
+         * rejected. Notifications still behind others in their tenant's queue do not count.
+         */
+        @WithDefault("100")
+        int queueSize();
+
+        /**
+         * How long a notification may wait for a slot once it is its turn before it is rejected.
+         */
+        @WithDefault("30s")
+        Duration maxWait();
+    }
+}
@@ -0,0 +1,43 @@
+package bg.sit_varna.sit.si.config.channel;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Adaptive concurrency limits applied to every provider HTTP call (SendGrid, Twilio, Telegram).
+ */
+@ConfigMapping(prefix = "provider-limit")
+public interface ProviderLimitConfig {
+
+    @WithDefault("true")
+    boolean enabled();
+
+    @WithDefault("10")
+    int initialLimit();
+
+    @WithDefault("1")
+    int minLimit();
+
+    @WithDefault("200")
+    int maxLimit();
+
+    /**
+     * Multiplier applied to the limit on overload (429, timeout, 5xx, latency spike).
+     */
+    @WithDefault("0.9")
+    double backoffRatio();
+
+    /**
+     * A call slower than this multiple of the average round trip counts as a latency spike.
+     */
+    @WithDefault("2.0")
+    double latencyTolerance();
+
+    /**
+     * Longest a call waits for a free slot before it fails.
+     */
+    @WithDefault("30s")
+    Duration maxWait();
+}
@@ -0,0 +1,51 @@
+package bg.sit_varna.sit.si.config.channel;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Cluster-wide send rates the providers publish. Unlike {@code redis.rate-limit}, which protects recipients,
+ * these keep the whole service under the provider's own throughput limits.
+ */
+@ConfigMapping(prefix = "provider-pacing")
+public interface ProviderPacingConfig {
+
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Longest a send waits for its slot. A longer wait fails the send as rate limited so it goes to the
+     * cold queue instead of holding a worker; keep it below the senders' {@code @Timeout}.
+     */
+    @WithDefault("5s")
+    Duration maxWait();
+
+    TelegramPacing telegram();
+
+    TwilioPacing twilio();
+
+    interface TelegramPacing {
+        /**
+         * Messages per second for the whole bot.
+         */
+        @WithDefault("30")
+        double botPerSecond();
+
+        /**
+         * Messages per second to a single chat.
+         */
+        @WithDefault("1")
+        double chatPerSecond();
+    }
+
+    interface TwilioPacing {
+        /**
+         * Messages per second from one sending number (1 for long codes, more for short codes and
+         * toll-free numbers with a raised limit).
+         */
+        @WithDefault("1")
+        double numberPerSecond();
+    }
+}
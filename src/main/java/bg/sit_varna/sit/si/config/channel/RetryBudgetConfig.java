@@ -0,0 +1,33 @@
+package bg.sit_varna.sit.si.config.channel;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Caps in-memory retries, both per notification (shared by the processor and sender {@code @Retry} layers)
+ * and per provider as a fraction of first attempts.
+ */
+@ConfigMapping(prefix = "retry-budget")
+public interface RetryBudgetConfig {
+
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * In-memory retries one notification may use across all layers before it falls back to the cold queue.
+     */
+    @WithDefault("3")
+    int perNotification();
+
+    /**
+     * Retry tokens each first attempt earns for its provider; 0.1 means retries never exceed 10% of traffic.
+     */
+    @WithDefault("0.1")
+    double ratio();
+
+    /**
+     * Most retry tokens a provider can save up, which is also what it starts with.
+     */
+    @WithDefault("10")
+    int maxTokens();
+}
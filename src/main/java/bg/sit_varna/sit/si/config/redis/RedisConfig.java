@@ -1,9 +1,14 @@
 package bg.sit_varna.sit.si.config.redis;
 
+import bg.sit_varna.sit.si.constant.RateLimitAlgorithm;
+import bg.sit_varna.sit.si.constant.RateLimitMode;
+import bg.sit_varna.sit.si.constant.RetryStorage;
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 @ConfigMapping(prefix = "redis")
 public interface RedisConfig {
@@ -16,6 +21,10 @@ public interface RedisConfig {
 
     DeduplicationConfig deduplication();
 
+    RetryConfig retry();
+
+    DeadLetterConfig deadLetter();
+
     interface CacheConfig {
         @WithDefault("true")
         boolean enabled();
@@ -29,27 +38,123 @@ public interface RedisConfig {
         boolean enabled();
     }
 
+    /**
+     * Per-recipient limits, checked in one atomic script call with the algorithm chosen per channel.
+     */
     interface RateLimitConfig {
         @WithDefault("true")
         boolean enabled();
 
+        @WithDefault("redis")
+        RateLimitMode mode();
+
+        HybridConfig hybrid();
+
         @WithDefault("10")
         int emailMax();
 
         @WithDefault("1h")
         Duration emailWindow();
 
+        @WithDefault("sliding-window")
+        RateLimitAlgorithm emailAlgorithm();
+
         @WithDefault("5")
         int smsMax();
 
         @WithDefault("1h")
         Duration smsWindow();
 
+        @WithDefault("sliding-window")
+        RateLimitAlgorithm smsAlgorithm();
+
         @WithDefault("20")
         int telegramMax();
 
         @WithDefault("1h")
         Duration telegramWindow();
+
+        @WithDefault("sliding-window")
+        RateLimitAlgorithm telegramAlgorithm();
+
+        /**
+         * Local buckets used in {@code hybrid} mode. They always count fixed windows; the per-channel
+         * algorithm applies to {@code redis} mode only.
+         */
+        interface HybridConfig {
+            /**
+             * Lock stripes for the local buckets, rounded up to a power of two.
+             */
+            @WithDefault("64")
+            int stripes();
+
+            /**
+             * How often local admissions are pushed to Redis and the cluster-wide counts pulled back.
+             */
+            @WithDefault("1s")
+            Duration flushInterval();
+
+            /**
+             * Share of a limit one pod may admit without syncing (at least one request), which bounds
+             * the cluster-wide overshoot to tolerance x limit x pods.
+             */
+            @WithDefault("0.1")
+            double tolerance();
+        }
+    }
+
+    interface RetryConfig {
+        /**
+         * What the cold queue keeps per retry. {@code reference} stores the id plus a few bytes of retry
+         * state and reloads the content from the database when the retry is due.
+         */
+        @WithDefault("reference")
+        RetryStorage storage();
+
+        /**
+         * Maximum due retries claimed from the cold queue per Redis call.
+         */
+        @WithDefault("500")
+        int claimBatchSize();
+
+        /**
+         * Longest the retry loop sleeps without a wake-up, as a safety net for missed pub/sub messages.
+         */
+        @WithDefault("30s")
+        Duration maxIdleWait();
+
+        /**
+         * Cold retries before a notification is marked permanently failed.
+         */
+        @WithDefault("6")
+        int maxAttempts();
+
+        /**
+         * Smallest delay before a cold retry; delays then grow with decorrelated jitter.
+         */
+        @WithDefault("30s")
+        Duration baseDelay();
+
+        /**
+         * Upper bound for a single cold retry delay.
+         */
+        @WithDefault("1h")
+        Duration maxDelay();
+    }
+
+    interface DeadLetterConfig {
+        /**
+         * Default pace of a bulk replay, in notifications per second, so recovering from an outage
+         * does not flood the provider that caused it.
+         */
+        @WithDefault("10")
+        double replayRate();
+
+        /**
+         * Most entries a single replay request may select.
+         */
+        @WithDefault("1000")
+        int replayMaxBatch();
     }
 
     interface DeduplicationConfig {
@@ -58,5 +163,39 @@ public interface RedisConfig {
 
         @WithDefault("5m")
         Duration ttl();
+
+        /**
+         * Template data fields that make two notifications different, per template name
+         * (e.g. {@code redis.deduplication.fields."sms/otp"=code}). Templates not listed compare all fields.
+         */
+        Map<String, List<String>> fields();
+
+        BloomConfig bloom();
+
+        /**
+         * Local filter in front of Redis; see {@code DeduplicationService} for why it is off by default.
+         */
+        interface BloomConfig {
+            @WithDefault("false")
+            boolean enabled();
+
+            /**
+             * Notifications one pod is expected to admit per TTL.
+             */
+            @WithDefault("100000")
+            long expectedInsertions();
+
+            /**
+             * Share of new notifications that still go to Redis because the filter thinks it saw them.
+             */
+            @WithDefault("0.01")
+            double falsePositiveRate();
+
+            /**
+             * Bit arrays the TTL is split over; more partitions forget expired entries sooner.
+             */
+            @WithDefault("2")
+            int partitions();
+        }
     }
 }
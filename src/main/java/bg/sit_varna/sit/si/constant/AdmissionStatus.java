@@ -0,0 +1,16 @@
+package bg.sit_varna.sit.si.constant;
+
+/**
+ * Outcome of the ingest admission checks (tenant quota, rate limit and deduplication)
+ * for a single notification.
+ */
+public enum AdmissionStatus {
+    ACCEPTED,
+    RATE_LIMITED,
+    QUOTA_EXCEEDED,
+    DUPLICATE;
+
+    public boolean isAccepted() {
+        return this == ACCEPTED;
+    }
+}
@@ -31,6 +31,12 @@ public enum NotificationErrorCode {
             "error.title.configuration-error",
             Response.Status.SERVICE_UNAVAILABLE // 503 - Service not properly configured
     ),
+    EMAIL_RATE_LIMITED(
+            "NOTIF_004",
+            "error.notification.email.rate-limited",
+            "error.title.rate-limit-exceeded",
+            Response.Status.TOO_MANY_REQUESTS
+    ),
 
     // SMS errors (NOTIF_011 - NOTIF_020)
     SMS_SEND_FAILED(
@@ -57,6 +63,12 @@ public enum NotificationErrorCode {
             "error.title.configuration-error",
             Response.Status.SERVICE_UNAVAILABLE // 503 - Service not properly configured
     ),
+    SMS_RATE_LIMITED(
+            "NOTIF_015",
+            "error.notification.sms.rate-limited",
+            "error.title.rate-limit-exceeded",
+            Response.Status.TOO_MANY_REQUESTS
+    ),
 
     // Telegram errors (NOTIF_021 - NOTIF_030)
     TELEGRAM_SEND_FAILED(
@@ -102,6 +114,14 @@ public enum NotificationErrorCode {
             Response.Status.TOO_MANY_REQUESTS
     ),
 
+    // Channel capacity errors (NOTIF_031 - NOTIF_040)
+    CHANNEL_SATURATED(
+            "NOTIF_031",
+            "error.notification.channel.saturated",
+            "error.title.service-overloaded",
+            Response.Status.SERVICE_UNAVAILABLE // 503 - Channel bulkhead is full
+    ),
+
     // Template errors (NOTIF_041 - NOTIF_060)
     TEMPLATE_NOT_FOUND(
             "NOTIF_041",
@@ -164,6 +184,30 @@ public enum NotificationErrorCode {
                 "error.rate-limit.exceeded",
                 "error.title.rate-limit-exceeded",
         Response.Status.TOO_MANY_REQUESTS // 429
+    ),
+    QUEUE_OVERLOADED(
+            "NOTIF_067",
+            "error.queue.overloaded",
+            "error.title.service-overloaded",
+            Response.Status.SERVICE_UNAVAILABLE // 503
+    ),
+    SCHEDULED_NOTIFICATION_NOT_FOUND(
+            "NOTIF_068",
+            "error.schedule.not-found",
+            "error.title.notification-not-found",
+            Response.Status.NOT_FOUND // 404 - Unknown id, or already sent/cancelled
+    ),
+    TENANT_QUOTA_EXCEEDED(
+            "NOTIF_069",
+            "error.tenant.quota-exceeded",
+            "error.title.rate-limit-exceeded",
+            Response.Status.TOO_MANY_REQUESTS // 429 - Daily quota or tenant rate used up
+    ),
+    TENANT_UNKNOWN_API_KEY(
+            "NOTIF_070",
+            "error.tenant.unknown-api-key",
+            "error.title.unauthorized",
+            Response.Status.UNAUTHORIZED // 401 - Missing or unknown X-API-Key
     );
 
     private final String code;
@@ -0,0 +1,9 @@
+package bg.sit_varna.sit.si.constant;
+
+public enum NotificationPriority {
+    /**
+     * Time-critical traffic such as verification codes; served by its own lane.
+     */
+    HIGH,
+    NORMAL
+}
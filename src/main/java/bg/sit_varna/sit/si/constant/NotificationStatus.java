@@ -1,6 +1,8 @@
 package bg.sit_varna.sit.si.constant;
 
 public enum NotificationStatus {
+    SCHEDULED,
+    CANCELLED,
     QUEUED,
     PROCESSING,
     SENT,
@@ -0,0 +1,12 @@
+package bg.sit_varna.sit.si.constant;
+
+public enum QueueTransport {
+    /**
+     * In-process SmallRye channel. Fast, but lost when the pod stops.
+     */
+    MEMORY,
+    /**
+     * Redis Stream with a consumer group, shared by all replicas.
+     */
+    REDIS_STREAMS
+}
@@ -0,0 +1,30 @@
+package bg.sit_varna.sit.si.constant;
+
+public enum RateLimitAlgorithm {
+    /**
+     * Counter reset at fixed intervals. Cheapest, but allows up to twice the limit around a window edge.
+     */
+    FIXED_WINDOW("fixed-window"),
+    /**
+     * One timestamp per request inside the window. Exact, memory grows with the limit.
+     */
+    SLIDING_LOG("sliding-log"),
+    /**
+     * Current window count plus the weighted previous one. Near exact in constant memory.
+     */
+    SLIDING_WINDOW("sliding-window"),
+    /**
+     * Continuous refill of {@code max} tokens per window; allows a burst of {@code max}, then a steady rate.
+     */
+    TOKEN_BUCKET("token-bucket");
+
+    private final String value;
+
+    RateLimitAlgorithm(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
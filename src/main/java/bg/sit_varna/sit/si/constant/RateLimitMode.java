@@ -0,0 +1,13 @@
+package bg.sit_varna.sit.si.constant;
+
+public enum RateLimitMode {
+    /**
+     * Every check is a Redis round trip. Exact across the cluster.
+     */
+    REDIS,
+    /**
+     * Checks run against local buckets that are reconciled with Redis in batched flushes.
+     * Cluster-wide limits may be overshot within {@code redis.rate-limit.hybrid.tolerance}.
+     */
+    HYBRID
+}
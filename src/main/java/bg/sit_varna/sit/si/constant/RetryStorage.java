@@ -0,0 +1,12 @@
+package bg.sit_varna.sit.si.constant;
+
+public enum RetryStorage {
+    /**
+     * The whole serialized notification is the sorted set member.
+     */
+    PAYLOAD,
+    /**
+     * The sorted set holds only ids; the notification is rebuilt from its database record.
+     */
+    REFERENCE
+}
@@ -0,0 +1,115 @@
+package bg.sit_varna.sit.si.controller.api;
+
+import bg.sit_varna.sit.si.dto.model.DeadLetter;
+import bg.sit_varna.sit.si.dto.request.ReplayDeadLettersRequest;
+import bg.sit_varna.sit.si.dto.response.ReplayDeadLettersResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+/**
+ * Administrative API for notifications that exhausted every retry.
+ *
+ * <p>Once {@code redis.retry.max-attempts} cold retries have failed, a notification is moved to the
+ * dead-letter store instead of cycling through the retry queue forever. These endpoints let an operator
+ * inspect what failed and why, and send it again once the cause has been fixed.</p>
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+@Path("/api/v1/admin/dead-letters")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Tag(
+        name = "Dead Letters",
+        description = "Inspect and replay notifications that exhausted all retries"
+)
+public interface DeadLetterApi {
+
+    @GET
+    @Operation(
+            summary = "List dead-lettered notifications",
+            description = "Newest first. Filter by channel and/or error code; both are optional."
+    )
+    @APIResponses(value = {
+            @APIResponse(
+                    responseCode = "200",
+                    description = "Matching dead letters",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(type = SchemaType.ARRAY, implementation = DeadLetter.class)
+                    )
+            )
+    })
+    Response listDeadLetters(
+            @Parameter(description = "Channel filter", example = "SMS")
+            @QueryParam("channel") String channel,
+            @Parameter(description = "Error code filter", example = "NOTIF_011")
+            @QueryParam("errorCode") String errorCode,
+            @QueryParam("offset") @DefaultValue("0") @Min(0) int offset,
+            @QueryParam("limit") @DefaultValue("50") @Min(1) @Max(500) int limit);
+
+    @GET
+    @Path("/counts")
+    @Operation(
+            summary = "Count dead-lettered notifications",
+            description = "Totals by channel and by error code, read from counters without scanning the store."
+    )
+    @APIResponses(value = {
+            @APIResponse(
+                    responseCode = "200",
+                    description = "Dead-letter totals",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(type = SchemaType.OBJECT, implementation = Object.class)
+                    )
+            )
+    })
+    Response countDeadLetters();
+
+    @POST
+    @Path("/replay")
+    @Operation(
+            summary = "Replay dead-lettered notifications",
+            description = """
+            Selects matching entries (newest first) and re-queues them in the background with a fresh retry budget.
+            
+            **Throttling:**
+            Entries are re-queued at `ratePerSecond` (default `redis.dead-letter.replay-rate`), so replaying
+            a large backlog after an outage does not flood the provider that just recovered.
+            If the queue is full the replay waits instead of dropping entries.
+            """
+    )
+    @APIResponses(value = {
+            @APIResponse(
+                    responseCode = "202",
+                    description = "Replay started",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = ReplayDeadLettersResponse.class)
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "Invalid limit or rate"
+            )
+    })
+    Response replayDeadLetters(@Valid ReplayDeadLettersRequest request);
+}
@@ -1,11 +1,16 @@
 package bg.sit_varna.sit.si.controller.api;
 
+import bg.sit_varna.sit.si.dto.request.SendBatchNotificationRequest;
 import bg.sit_varna.sit.si.dto.request.SendNotificationRequest;
+import bg.sit_varna.sit.si.dto.response.SendBatchNotificationResponse;
 import bg.sit_varna.sit.si.dto.response.SendNotificationResponse;
+import bg.sit_varna.sit.si.dto.response.StreamIngestResponse;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
@@ -21,6 +26,8 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import java.io.InputStream;
+
 /**
  * REST API interface for sending notifications across multiple delivery channels.
  *
@@ -34,6 +41,8 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
  * <li><strong>Template-Based Content:</strong> Dynamic content rendering with variable substitution</li>
  * <li><strong>Internationalization:</strong> Automatic locale resolution from Accept-Language header</li>
  * <li><strong>Rate Limiting:</strong> Per-channel rate limits to prevent abuse and ensure fair usage</li>
+ * <li><strong>Tenants:</strong> Optional {@code X-API-Key} header identifying the calling product, with daily
+ * quotas, per-minute limits and a fair share of delivery throughput per product</li>
  * <li><strong>Deduplication:</strong> Prevents duplicate notifications within configurable time windows</li>
  * <li><strong>Validation:</strong> Comprehensive input validation for recipients, templates, and parameters</li>
  * </ul>
@@ -79,6 +88,8 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 )
 public interface NotificationApi {
 
+    String NDJSON = "application/x-ndjson";
+
     /**
      * POST /api/v1/notifications/send
      * Locale is automatically resolved from Accept-Language header
@@ -403,4 +414,166 @@ public interface NotificationApi {
             )
     })
     Response sendNotification(@Valid SendNotificationRequest request);
+
+    /**
+     * POST /api/v1/notifications/send/batch
+     * Locale is automatically resolved from Accept-Language header and applied to every item
+     */
+    @POST
+    @Path("/send/batch")
+    @Operation(
+            summary = "Send a batch of notifications",
+            description = """
+            Queues many notifications in a single call and returns one admission result per item.
+            
+            **Processing:**
+            - Every item is validated exactly like a single send request; any invalid item fails the whole batch with 400
+            - Rate limits and deduplication are checked for all items in one pipelined Redis round trip each
+            - Accepted items are persisted in one batched insert and then queued for async delivery
+            
+            **Per-Item Results:**
+            - `ACCEPTED`: Queued for delivery, `notificationId` is returned for tracking
+            - `RATE_LIMITED`: Recipient exceeded the channel rate limit (no 429 for the batch as a whole)
+            - `DUPLICATE`: Identical notification was sent recently, or appears earlier in the same batch
+            
+            **Limits:**
+            The number of items per call is capped by `ingest.batch.max-size` (default 5000).
+            """
+    )
+    @RequestBody(
+            description = "Batch of notification requests",
+            content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = SendBatchNotificationRequest.class),
+                    examples = @ExampleObject(
+                            name = "SMS + Email batch",
+                            value = """
+                                {
+                                  "notifications": [
+                                    {
+                                      "channel": "SMS",
+                                      "recipient": "+15005550006",
+                                      "templateName": "sms/appointment_reminder",
+                                      "data": { "firstName": "Alex", "time": "10:30" }
+                                    },
+                                    {
+                                      "channel": "EMAIL",
+                                      "recipient": "alexorozov@gmail.com",
+                                      "templateName": "email/welcome",
+                                      "data": { "firstName": "Alex", "appName": "QuarkusNotif" }
+                                    }
+                                  ]
+                                }
+                            """
+                    )
+            )
+    )
+    @APIResponses(value = {
+            @APIResponse(
+                    responseCode = "202",
+                    description = "Batch processed; see per-item results for accepted and rejected items",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = SendBatchNotificationResponse.class)
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "Empty batch, batch larger than the configured maximum, or an invalid item"
+            )
+    })
+    Response sendBatchNotifications(@Valid SendBatchNotificationRequest request);
+
+    /**
+     * POST /api/v1/notifications/send/stream
+     * Body is read line by line, so the request size is not bound by the batch limit
+     */
+    @POST
+    @Path("/send/stream")
+    @Consumes(NDJSON)
+    @Operation(
+            summary = "Stream notifications as NDJSON",
+            description = """
+            Ingests a very large list of notifications as newline-delimited JSON (one send request per line).
+            
+            **Processing:**
+            - The body is consumed incrementally; it is never buffered as a whole
+            - Lines are grouped into chunks of `ingest.stream.chunk-size` (default 500) and admitted through
+              the same pipelined rate limit, deduplication and batched insert path as `/send/batch`
+            - Progress is logged after every chunk
+            
+            **Invalid Lines:**
+            Malformed or invalid lines are counted and skipped, they do not fail the upload.
+            The first `ingest.stream.max-reported-errors` (default 100) are returned with their line numbers.
+            
+            **Limits:**
+            The overall upload size is capped by `ingest.stream.max-body-size` (default 256M), separately from the
+            1M `quarkus.http.limits.max-body-size` of the other endpoints.
+            """
+    )
+    @RequestBody(
+            description = "One SendNotificationRequest JSON object per line",
+            content = @Content(
+                    mediaType = NDJSON,
+                    examples = @ExampleObject(
+                            name = "Two SMS reminders",
+                            value = """
+                                {"channel":"SMS","recipient":"+15005550006","templateName":"sms/appointment_reminder","data":{"firstName":"Alex","time":"10:30"}}
+                                {"channel":"SMS","recipient":"+15005550007","templateName":"sms/appointment_reminder","data":{"firstName":"Maria","time":"11:00"}}
+                            """
+                    )
+            )
+    )
+    @APIResponses(value = {
+            @APIResponse(
+                    responseCode = "202",
+                    description = "Stream consumed; see the summary for accepted, rejected and invalid counts",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = StreamIngestResponse.class)
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "413",
+                    description = "Body exceeds the configured maximum request size"
+            ),
+            @APIResponse(
+                    responseCode = "503",
+                    description = "Queue stayed full; partial summary with aborted=true, resume after processedLines",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = StreamIngestResponse.class)
+                    )
+            )
+    })
+    Response sendNotificationStream(InputStream body);
+
+    /**
+     * DELETE /api/v1/notifications/{id}/schedule
+     * Cancels a notification sent with a future sendAt, as long as its time has not come yet
+     */
+    @DELETE
+    @Path("/{id}/schedule")
+    @Operation(
+            summary = "Cancel a scheduled notification",
+            description = """
+            Cancels a notification that was accepted with a future `sendAt` and has not been released yet.
+            
+            The notification is marked CANCELLED and its timer is removed. Once the send time has been
+            reached the notification is already on its way and can no longer be cancelled.
+            """
+    )
+    @APIResponses(value = {
+            @APIResponse(
+                    responseCode = "204",
+                    description = "Scheduled notification cancelled"
+            ),
+            @APIResponse(
+                    responseCode = "404",
+                    description = "No pending scheduled notification with this id (unknown, already sent or already cancelled)"
+            )
+    })
+    Response cancelScheduledNotification(
+            @Parameter(description = "Notification id returned when it was scheduled", required = true)
+            @PathParam("id") String id);
 }
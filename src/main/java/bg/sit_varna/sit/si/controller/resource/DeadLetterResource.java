@@ -0,0 +1,47 @@
+package bg.sit_varna.sit.si.controller.resource;
+
+import bg.sit_varna.sit.si.controller.api.DeadLetterApi;
+import bg.sit_varna.sit.si.dto.request.ReplayDeadLettersRequest;
+import bg.sit_varna.sit.si.service.core.DeadLetterReplayService;
+import bg.sit_varna.sit.si.service.redis.DeadLetterService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.ws.rs.core.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@ApplicationScoped
+public class DeadLetterResource implements DeadLetterApi {
+
+    @Inject
+    DeadLetterService deadLetterService;
+
+    @Inject
+    DeadLetterReplayService replayService;
+
+    @Override
+    public Response listDeadLetters(String channel, String errorCode, int offset, int limit) {
+        return Response.ok(deadLetterService.list(channel, errorCode, offset, limit)).build();
+    }
+
+    @Override
+    public Response countDeadLetters() {
+        Map<String, Object> counts = new HashMap<>(deadLetterService.counts());
+        counts.put("total", deadLetterService.size());
+
+        return Response.ok(counts).build();
+    }
+
+    @Override
+    public Response replayDeadLetters(@Valid ReplayDeadLettersRequest request) {
+        ReplayDeadLettersRequest selection = request != null
+                ? request
+                : new ReplayDeadLettersRequest(null, null, null, null);
+
+        return Response.status(Response.Status.ACCEPTED)
+                .entity(replayService.replay(selection))
+                .build();
+    }
+}
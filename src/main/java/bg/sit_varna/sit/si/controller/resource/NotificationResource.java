@@ -1,20 +1,33 @@
 package bg.sit_varna.sit.si.controller.resource;
 
+import bg.sit_varna.sit.si.config.app.IngestConfig;
 import bg.sit_varna.sit.si.config.app.LocaleResolver;
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.AdmissionStatus;
 import bg.sit_varna.sit.si.constant.NotificationStatus;
 import bg.sit_varna.sit.si.controller.api.NotificationApi;
 import bg.sit_varna.sit.si.controller.base.BaseResource;
 import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.dto.request.SendBatchNotificationRequest;
 import bg.sit_varna.sit.si.dto.request.SendNotificationRequest;
+import bg.sit_varna.sit.si.dto.response.BatchItemResult;
+import bg.sit_varna.sit.si.dto.response.SendBatchNotificationResponse;
 import bg.sit_varna.sit.si.dto.response.SendNotificationResponse;
+import bg.sit_varna.sit.si.dto.response.StreamIngestResponse;
 import bg.sit_varna.sit.si.mapper.NotificationMapper;
 import bg.sit_varna.sit.si.service.core.NotificationService;
+import bg.sit_varna.sit.si.service.core.ScheduledSendService;
+import bg.sit_varna.sit.si.service.core.StreamIngestService;
+import bg.sit_varna.sit.si.service.core.TenantService;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.core.Response;
 import org.jboss.logging.Logger;
 
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 @ApplicationScoped
@@ -24,14 +37,29 @@ public class NotificationResource extends BaseResource implements NotificationAp
 
     private NotificationService notificationService;
     private NotificationMapper notificationMapper;
+    private StreamIngestService streamIngestService;
+    private IngestConfig ingestConfig;
+    private ScheduledSendService scheduledSendService;
+    private TenantService tenantService;
+    private QueueConfig queueConfig;
 
     @Inject
     public NotificationResource(LocaleResolver localeResolver,
                                 NotificationService notificationService,
-                                NotificationMapper notificationMapper) {
+                                NotificationMapper notificationMapper,
+                                StreamIngestService streamIngestService,
+                                IngestConfig ingestConfig,
+                                ScheduledSendService scheduledSendService,
+                                TenantService tenantService,
+                                QueueConfig queueConfig) {
         super(localeResolver);
         this.notificationService = notificationService;
         this.notificationMapper = notificationMapper;
+        this.streamIngestService = streamIngestService;
+        this.ingestConfig = ingestConfig;
+        this.scheduledSendService = scheduledSendService;
+        this.tenantService = tenantService;
+        this.queueConfig = queueConfig;
     }
 
     protected NotificationResource() {
@@ -42,6 +70,10 @@ public class NotificationResource extends BaseResource implements NotificationAp
         return LOG;
     }
 
+    private String resolveTenant(Locale locale) {
+        return tenantService.resolve(httpHeaders.getHeaderString(TenantService.API_KEY_HEADER), locale);
+    }
+
     /**
      * POST /api/v1/notifications/send
      */
@@ -49,18 +81,85 @@ public class NotificationResource extends BaseResource implements NotificationAp
     public Response sendNotification(@Valid SendNotificationRequest request) {
         Locale resolvedLocale = resolveLocale();
 
-        Notification notification = notificationMapper.toDomain(request, resolvedLocale);
+        Notification notification = notificationMapper.toDomain(request, resolvedLocale, resolveTenant(resolvedLocale));
 
         notificationService.dispatchNotification(notification);
 
+        boolean scheduled = notification.isScheduled();
         SendNotificationResponse response = SendNotificationResponse.of(
                 notification.getId(),
-                NotificationStatus.QUEUED,
-                "Notification queued for delivery",
+                scheduled ? NotificationStatus.SCHEDULED : NotificationStatus.QUEUED,
+                scheduled ? "Notification scheduled for delivery" : "Notification queued for delivery",
                 request.recipient(),
                 request.channel().toString()
         );
 
         return Response.status(Response.Status.ACCEPTED).entity(response).build();
     }
+
+    /**
+     * POST /api/v1/notifications/send/batch
+     */
+    @Override
+    public Response sendBatchNotifications(@Valid SendBatchNotificationRequest request) {
+        List<SendNotificationRequest> items = request.notifications();
+        int maxSize = ingestConfig.batch().maxSize();
+        if (items.size() > maxSize) {
+            throw new IllegalArgumentException(
+                    String.format("Batch contains %d notifications, maximum allowed is %d", items.size(), maxSize));
+        }
+
+        Locale resolvedLocale = resolveLocale();
+        String tenant = resolveTenant(resolvedLocale);
+
+        List<Notification> notifications = items.stream()
+                .map(item -> notificationMapper.toDomain(item, resolvedLocale, tenant))
+                .toList();
+
+        List<AdmissionStatus> statuses = notificationService.dispatchBatch(notifications);
+
+        List<BatchItemResult> results = new ArrayList<>(notifications.size());
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notification = notifications.get(i);
+            AdmissionStatus status = statuses.get(i);
+            results.add(new BatchItemResult(
+                    i,
+                    status.isAccepted() ? notification.getId() : null,
+                    status,
+                    notification.getRecipient(),
+                    notification.getChannel().toString()
+            ));
+        }
+
+        return Response.status(Response.Status.ACCEPTED)
+                .entity(SendBatchNotificationResponse.of(results))
+                .build();
+    }
+
+    /**
+     * POST /api/v1/notifications/send/stream
+     */
+    @Override
+    public Response sendNotificationStream(InputStream body) {
+        Locale resolvedLocale = resolveLocale();
+        StreamIngestResponse response = streamIngestService.ingest(body, resolvedLocale, resolveTenant(resolvedLocale));
+
+        if (response.aborted()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", String.valueOf(queueConfig.retryAfterSeconds()))
+                    .entity(response)
+                    .build();
+        }
+        return Response.status(Response.Status.ACCEPTED).entity(response).build();
+    }
+
+    /**
+     * DELETE /api/v1/notifications/{id}/schedule
+     */
+    @Override
+    public Response cancelScheduledNotification(String id) {
+        scheduledSendService.cancel(id, resolveLocale());
+
+        return Response.noContent().build();
+    }
 }
@@ -0,0 +1,29 @@
+package bg.sit_varna.sit.si.dto.model;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+/**
+ * A notification that used up every retry, together with why it failed.
+ */
+@Schema(description = "Notification that exhausted all retries")
+public record DeadLetter(
+
+        @Schema(description = "Notification id", example = "7d3c1a5e-4b2f-4f6e-9a8b-1c2d3e4f5a6b")
+        String id,
+
+        Notification notification,
+
+        @Schema(description = "Error code of the last failure, or the exception type if it had none",
+                example = "NOTIF_011")
+        String errorCode,
+
+        @Schema(description = "Message of the last failure", example = "Failed to send SMS to +359876543210 via twilio: timeout")
+        String reason,
+
+        @Schema(description = "Cold retries used before giving up", example = "6")
+        int attempts,
+
+        @Schema(description = "When the notification was dead-lettered, epoch milliseconds", example = "1762160400000")
+        long deadAt
+) {
+}
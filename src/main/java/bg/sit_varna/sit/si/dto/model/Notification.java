@@ -1,6 +1,7 @@
 package bg.sit_varna.sit.si.dto.model;
 
 import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.constant.NotificationPriority;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 
@@ -11,24 +12,36 @@ import java.util.Map;
 public class Notification {
 
     private final String id;
+    private final String tenant;
     private final String recipient;
     private final NotificationChannel channel;
     private final String templateName;
     private final String locale;
     private final Map<String, Object> data;
     private final String message;
+    private final NotificationPriority priority;
+    private final long createdAt;
+    private final long sendAt;
+    private final int retryAttempt;
+    private final long lastRetryDelay;
 
     // Mutable state (Domain logic can change this during processing)
     private String processedContent;
 
     private Notification(Builder builder) {
         this.id = builder.id;
+        this.tenant = builder.tenant;
         this.recipient = builder.recipient;
         this.channel = builder.channel;
         this.templateName = builder.templateName;
         this.locale = builder.locale;
         this.data = builder.data != null ? Map.copyOf(builder.data) : Collections.emptyMap();
         this.message = builder.message;
+        this.priority = builder.priority;
+        this.createdAt = builder.createdAt;
+        this.sendAt = builder.sendAt;
+        this.retryAttempt = builder.retryAttempt;
+        this.lastRetryDelay = builder.lastRetryDelay;
         this.processedContent = builder.processedContent;
     }
 
@@ -36,6 +49,50 @@ public class Notification {
         return new Builder();
     }
 
+    /**
+     * Copy for the next cold retry: the attempt counter is incremented and the chosen delay remembered,
+     * since the next backoff is derived from it.
+     */
+    public Notification forRetry(long delayMillis) {
+        return copy()
+                .retryAttempt(retryAttempt + 1)
+                .lastRetryDelay(delayMillis)
+                .build();
+    }
+
+    /**
+     * Copy carrying cold retry state that was kept apart from the notification, e.g. when it is
+     * rebuilt from its database record.
+     */
+    public Notification withRetryState(int retryAttempt, long lastRetryDelay) {
+        return copy()
+                .retryAttempt(retryAttempt)
+                .lastRetryDelay(lastRetryDelay)
+                .build();
+    }
+
+    /**
+     * Copy with a fresh retry budget, for replaying a dead-lettered notification.
+     */
+    public Notification forReplay() {
+        return copy().build();
+    }
+
+    private Builder copy() {
+        return builder()
+                .id(id)
+                .tenant(tenant)
+                .recipient(recipient)
+                .channel(channel)
+                .templateName(templateName)
+                .locale(locale)
+                .data(data)
+                .message(message)
+                .priority(priority)
+                .createdAt(createdAt)
+                .sendAt(sendAt);
+    }
+
     /**
      * Determines if this notification relies on a template or raw text.
      */
@@ -43,6 +100,13 @@ public class Notification {
         return templateName != null && !templateName.isBlank();
     }
 
+    /**
+     * Whether delivery was requested for a later time than admission.
+     */
+    public boolean isScheduled() {
+        return sendAt > createdAt;
+    }
+
     /**
      * Checks if the notification is fully prepared for dispatch.
      */
@@ -51,12 +115,24 @@ public class Notification {
     }
 
     public String getId() { return id; }
+    /** Product that submitted the notification, {@code null} when tenants are disabled. */
+    public String getTenant() { return tenant; }
     public String getRecipient() { return recipient; }
     public NotificationChannel getChannel() { return channel; }
     public String getTemplateName() { return templateName; }
     public String getLocale() { return locale; }
     public Map<String, Object> getData() { return data; }
     public String getMessage() { return message; }
+    /** Explicitly requested priority, or {@code null} to derive it from the template. */
+    public NotificationPriority getPriority() { return priority; }
+    /** Admission time in epoch milliseconds, {@code 0} if unknown. */
+    public long getCreatedAt() { return createdAt; }
+    /** Requested delivery time in epoch milliseconds, {@code 0} for immediate delivery. */
+    public long getSendAt() { return sendAt; }
+    /** Cold retries already scheduled for this notification. */
+    public int getRetryAttempt() { return retryAttempt; }
+    /** Delay of the previous cold retry in milliseconds, {@code 0} before the first one. */
+    public long getLastRetryDelay() { return lastRetryDelay; }
     public String getProcessedContent() { return processedContent; }
 
     public void setProcessedContent(String content) {
@@ -66,21 +142,33 @@ public class Notification {
     @JsonPOJOBuilder(withPrefix = "")
     public static class Builder {
         private String id;
+        private String tenant;
         private String recipient;
         private NotificationChannel channel;
         private String templateName;
         private String locale = "en";
         private Map<String, Object> data;
         private String message;
+        private NotificationPriority priority;
+        private long createdAt;
+        private long sendAt;
+        private int retryAttempt;
+        private long lastRetryDelay;
         private String processedContent;
 
         public Builder id(String id) { this.id = id; return this; }
+        public Builder tenant(String tenant) { this.tenant = tenant; return this; }
         public Builder recipient(String recipient) { this.recipient = recipient; return this; }
         public Builder channel(NotificationChannel channel) { this.channel = channel; return this; }
         public Builder templateName(String templateName) { this.templateName = templateName; return this; }
         public Builder locale(String locale) { this.locale = locale; return this; }
         public Builder data(Map<String, Object> data) { this.data = data; return this; }
         public Builder message(String message) { this.message = message; return this; }
+        public Builder priority(NotificationPriority priority) { this.priority = priority; return this; }
+        public Builder createdAt(long createdAt) { this.createdAt = createdAt; return this; }
+        public Builder sendAt(long sendAt) { this.sendAt = sendAt; return this; }
+        public Builder retryAttempt(int retryAttempt) { this.retryAttempt = retryAttempt; return this; }
+        public Builder lastRetryDelay(long lastRetryDelay) { this.lastRetryDelay = lastRetryDelay; return this; }
         public Builder processedContent(String content) { this.processedContent = content; return this; }
 
         public Notification build() {return new Notification(this);}
@@ -0,0 +1,28 @@
+package bg.sit_varna.sit.si.dto.request;
+
+import bg.sit_varna.sit.si.constant.NotificationChannel;
+import jakarta.validation.constraints.Positive;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Schema(description = "Selects dead-lettered notifications to send again")
+public record ReplayDeadLettersRequest(
+
+        @Schema(description = "Only replay this channel; all channels when omitted",
+                example = "SMS")
+        NotificationChannel channel,
+
+        @Schema(description = "Only replay entries that failed with this error code; all codes when omitted",
+                example = "NOTIF_011")
+        String errorCode,
+
+        @Positive(message = "Limit must be positive")
+        @Schema(description = "Most entries to replay, newest first (capped by redis.dead-letter.replay-max-batch)",
+                example = "500")
+        Integer limit,
+
+        @Positive(message = "Rate must be positive")
+        @Schema(description = "Replays per second (defaults to redis.dead-letter.replay-rate)",
+                example = "5")
+        Double ratePerSecond
+) {
+}
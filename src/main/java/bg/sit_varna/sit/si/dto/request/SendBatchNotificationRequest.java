@@ -0,0 +1,22 @@
+package bg.sit_varna.sit.si.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Request for queueing many notifications in a single call")
+public record SendBatchNotificationRequest(
+
+        @NotEmpty(message = "At least one notification is required")
+        @Schema(description = "Notifications to queue, processed in order",
+                required = true)
+        List<@Valid SendNotificationRequest> notifications
+) {
+    public SendBatchNotificationRequest {
+        if (notifications != null) {
+            notifications = List.copyOf(notifications);
+        }
+    }
+}
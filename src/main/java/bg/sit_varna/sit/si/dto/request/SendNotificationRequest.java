@@ -1,11 +1,13 @@
 package bg.sit_varna.sit.si.dto.request;
 
 import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.constant.NotificationPriority;
 import bg.sit_varna.sit.si.validation.annotation.ValidNotificationRequest;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
+import java.time.Instant;
 import java.util.Map;
 
 @Schema(description = "Request for sending a notification synchronously")
@@ -34,11 +36,29 @@ public record SendNotificationRequest(
 
         @Schema(description = "Data to be used in template rendering",
                 example = "{\"firstName\":\"Ivan\",\"actionUrl\":\"https://app.com/dashboard\",\"supportEmail\":\"support@app.com\",\"appName\":\"My App\",\"year\":\"2025\"}")
-        Map<String, Object> data
+        Map<String, Object> data,
+
+        @Schema(description = "Delivery priority. When omitted it is derived from the template (see queue.lanes.high-priority-templates)",
+                example = "HIGH")
+        NotificationPriority priority,
+
+        @Schema(description = "Deliver no earlier than this instant (ISO-8601). Omitted or past means send immediately",
+                example = "2025-11-03T08:30:00Z")
+        Instant sendAt
 ) {
     public SendNotificationRequest {
         if (data != null) {
             data = Map.copyOf(data);
         }
     }
+
+    public SendNotificationRequest(NotificationChannel channel, String recipient, String templateName,
+                                   String message, Map<String, Object> data) {
+        this(channel, recipient, templateName, message, data, null, null);
+    }
+
+    public SendNotificationRequest(NotificationChannel channel, String recipient, String templateName,
+                                   String message, Map<String, Object> data, NotificationPriority priority) {
+        this(channel, recipient, templateName, message, data, priority, null);
+    }
 }
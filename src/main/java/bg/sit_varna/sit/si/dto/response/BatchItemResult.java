@@ -0,0 +1,34 @@
+package bg.sit_varna.sit.si.dto.response;
+
+import bg.sit_varna.sit.si.constant.AdmissionStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Schema(description = "Admission result for a single item of a batch")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(
+
+        @Schema(description = "Zero-based position of the item in the request",
+                example = "0")
+        int index,
+
+        @Schema(description = "Notification identifier (only present for accepted items)",
+                example = "550e8400-e29b-41d4-a716-446655440000")
+        String notificationId,
+
+        @Schema(description = "Admission outcome",
+                example = "ACCEPTED")
+        AdmissionStatus status,
+
+        @Schema(description = "Recipient identifier",
+                example = "ivan.petrov@example.com")
+        String recipient,
+
+        @Schema(description = "Notification channel",
+                example = "EMAIL")
+        String channel
+) {
+    public boolean accepted() {
+        return status != null && status.isAccepted();
+    }
+}
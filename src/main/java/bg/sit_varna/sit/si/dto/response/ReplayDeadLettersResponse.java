@@ -0,0 +1,34 @@
+package bg.sit_varna.sit.si.dto.response;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Result of starting a dead-letter replay")
+public record ReplayDeadLettersResponse(
+
+        @Schema(description = "Number of entries selected for replay",
+                example = "500")
+        int selected,
+
+        @Schema(description = "Pace of the replay in notifications per second",
+                example = "5.0")
+        double ratePerSecond,
+
+        @Schema(description = "Expected time until every selected entry has been re-queued, in seconds",
+                example = "100")
+        long estimatedSeconds,
+
+        @Schema(description = "Timestamp of the operation",
+                example = "2025-10-26T14:30:00")
+        LocalDateTime timestamp
+) {
+    public static ReplayDeadLettersResponse of(int selected, double ratePerSecond) {
+        return new ReplayDeadLettersResponse(
+                selected,
+                ratePerSecond,
+                (long) Math.ceil(selected / ratePerSecond),
+                LocalDateTime.now()
+        );
+    }
+}
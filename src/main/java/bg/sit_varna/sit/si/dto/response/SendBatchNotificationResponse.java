@@ -0,0 +1,49 @@
+package bg.sit_varna.sit.si.dto.response;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Response for a batch send with one result per submitted item")
+public record SendBatchNotificationResponse(
+
+        @Schema(description = "Number of submitted items",
+                example = "3")
+        int total,
+
+        @Schema(description = "Number of items queued for delivery",
+                example = "2")
+        int accepted,
+
+        @Schema(description = "Number of items rejected by rate limiting or deduplication",
+                example = "1")
+        int rejected,
+
+        @Schema(description = "Per-item results in request order")
+        List<BatchItemResult> results,
+
+        @Schema(description = "Timestamp of the operation",
+                example = "2025-10-26T14:30:00")
+        LocalDateTime timestamp
+) {
+    public SendBatchNotificationResponse {
+        if (results != null) {
+            results = List.copyOf(results);
+        }
+    }
+
+    /**
+     * Creates a SendBatchNotificationResponse with counters derived from the results.
+     */
+    public static SendBatchNotificationResponse of(List<BatchItemResult> results) {
+        int accepted = (int) results.stream().filter(BatchItemResult::accepted).count();
+        return new SendBatchNotificationResponse(
+                results.size(),
+                accepted,
+                results.size() - accepted,
+                results,
+                LocalDateTime.now()
+        );
+    }
+}
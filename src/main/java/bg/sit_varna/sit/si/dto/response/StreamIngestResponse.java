@@ -0,0 +1,71 @@
+package bg.sit_varna.sit.si.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Summary of a streamed NDJSON ingest")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StreamIngestResponse(
+
+        @Schema(description = "Number of non-blank lines read from the body",
+                example = "250000")
+        long totalLines,
+
+        @Schema(description = "Number of notifications queued for delivery",
+                example = "249870")
+        long accepted,
+
+        @Schema(description = "Number of items rejected by rate limiting",
+                example = "100")
+        long rateLimited,
+
+        @Schema(description = "Number of items dropped as duplicates",
+                example = "20")
+        long duplicates,
+
+        @Schema(description = "Number of lines that could not be parsed or failed validation",
+                example = "10")
+        long invalid,
+
+        @Schema(description = "Number of chunks dispatched",
+                example = "500")
+        long chunks,
+
+        @Schema(description = "Whether reading stopped early because the queue stayed full; the counts cover the lines read so far",
+                example = "false")
+        boolean aborted,
+
+        @Schema(description = "Every line up to and including this one-based line number was handled; "
+                + "after an abort, resume the upload from the next line",
+                example = "250000")
+        long processedLines,
+
+        @Schema(description = "First invalid lines (capped by ingest.stream.max-reported-errors)")
+        List<LineError> errors,
+
+        @Schema(description = "Timestamp of the operation",
+                example = "2025-10-26T14:30:00")
+        LocalDateTime timestamp
+) {
+    public StreamIngestResponse {
+        if (errors != null) {
+            errors = List.copyOf(errors);
+        }
+    }
+
+    @Schema(description = "Error for a single NDJSON line")
+    public record LineError(
+
+            @Schema(description = "One-based line number in the uploaded body",
+                    example = "42")
+            long line,
+
+            @Schema(description = "Reason the line was rejected",
+                    example = "recipient: Invalid email format")
+            String message
+    ) {
+    }
+}
@@ -1,6 +1,7 @@
 package bg.sit_varna.sit.si.entity;
 
 import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.constant.NotificationPriority;
 import bg.sit_varna.sit.si.constant.NotificationStatus;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
@@ -17,7 +18,9 @@ import java.util.Map;
 @Entity
 @Table(name = "notifications", indexes = {
         @Index(name = "idx_notification_status", columnList = "status"),
-        @Index(name = "idx_notification_recipient", columnList = "recipient")
+        @Index(name = "idx_notification_recipient", columnList = "recipient"),
+        @Index(name = "idx_notification_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_notification_status_updated", columnList = "status, updated_at, id")
 })
 public class NotificationRecord extends PanacheEntityBase {
 
@@ -39,10 +42,26 @@ public class NotificationRecord extends PanacheEntityBase {
     @Column(nullable = false)
     private NotificationStatus status;
 
+    @Column(name = "locale")
+    private String locale;
+
+    @Column(name = "message", columnDefinition = "text")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority")
+    private NotificationPriority priority;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "jsonb")
     private Map<String, Object> payload;
 
+    @Column(name = "send_at")
+    private LocalDateTime sendAt;
+
+    @Column(name = "tenant")
+    private String tenant;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -94,6 +113,30 @@ public class NotificationRecord extends PanacheEntityBase {
         this.status = status;
     }
 
+    public String getLocale() {
+        return locale;
+    }
+
+    public void setLocale(String locale) {
+        this.locale = locale;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public NotificationPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(NotificationPriority priority) {
+        this.priority = priority;
+    }
+
     public Map<String, Object> getPayload() {
         return payload;
     }
@@ -102,6 +145,22 @@ public class NotificationRecord extends PanacheEntityBase {
         this.payload = payload;
     }
 
+    public LocalDateTime getSendAt() {
+        return sendAt;
+    }
+
+    public void setSendAt(LocalDateTime sendAt) {
+        this.sendAt = sendAt;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -3,6 +3,9 @@ package bg.sit_varna.sit.si.exception.exceptions;
 import bg.sit_varna.sit.si.constant.ErrorCategory;
 import bg.sit_varna.sit.si.constant.NotificationErrorCode;
 
+import java.time.Duration;
+import java.util.Optional;
+
 public class NotificationException extends RuntimeException {
 
     private final NotificationErrorCode errorCode;
@@ -58,4 +61,11 @@ public class NotificationException extends RuntimeException {
     public int getStatusCode() {
         return errorCode.getStatusCode();
     }
+
+    /**
+     * How long the provider asked us to wait before trying again, if it said so.
+     */
+    public Optional<Duration> getRetryAfter() {
+        return Optional.empty();
+    }
 }
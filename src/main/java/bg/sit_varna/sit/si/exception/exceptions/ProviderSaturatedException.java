@@ -0,0 +1,16 @@
+package bg.sit_varna.sit.si.exception.exceptions;
+
+import bg.sit_varna.sit.si.constant.ErrorCategory;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+
+/**
+ * Thrown before any call is made, when the provider's adaptive concurrency limit is full and the wait for
+ * a slot timed out. The provider did not fail, so senders pass it on unchanged and it must not count
+ * against a circuit breaker.
+ */
+public class ProviderSaturatedException extends NotificationException {
+
+    public ProviderSaturatedException(String title, String detail) {
+        super(NotificationErrorCode.CHANNEL_SATURATED, ErrorCategory.NOTIFICATION_SENDING, title, detail);
+    }
+}
@@ -0,0 +1,18 @@
+package bg.sit_varna.sit.si.exception.exceptions;
+
+import bg.sit_varna.sit.si.constant.ErrorCategory;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+
+public class QueueOverloadedException extends NotificationException {
+
+    private final long retryAfterSeconds;
+
+    public QueueOverloadedException(String title, String message, long retryAfterSeconds) {
+        super(NotificationErrorCode.QUEUE_OVERLOADED, ErrorCategory.SYSTEM, title, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
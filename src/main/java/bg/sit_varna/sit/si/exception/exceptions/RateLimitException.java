@@ -8,7 +8,11 @@ public class RateLimitException extends NotificationException {
     private final long retryAfterSeconds;
 
     public RateLimitException(String title, String message, long retryAfterSeconds) {
-        super(NotificationErrorCode.RATE_LIMIT_EXCEEDED, ErrorCategory.RATE_LIMIT, title, message);
+        this(NotificationErrorCode.RATE_LIMIT_EXCEEDED, title, message, retryAfterSeconds);
+    }
+
+    public RateLimitException(NotificationErrorCode errorCode, String title, String message, long retryAfterSeconds) {
+        super(errorCode, ErrorCategory.RATE_LIMIT, title, message);
         this.retryAfterSeconds = retryAfterSeconds;
     }
 
@@ -3,19 +3,33 @@ package bg.sit_varna.sit.si.exception.exceptions;
 import bg.sit_varna.sit.si.constant.ErrorCategory;
 import bg.sit_varna.sit.si.constant.NotificationErrorCode;
 
+import java.time.Duration;
+import java.util.Optional;
+
 public class SmsSendException extends NotificationException {
 
     private final String recipient;
     private final String provider;
+    private final Duration retryAfter;
 
     public SmsSendException(NotificationErrorCode errorCode,
                             String title,
                             String detail,
                             String recipient,
                             String provider) {
+        this(errorCode, title, detail, recipient, provider, (Duration) null);
+    }
+
+    public SmsSendException(NotificationErrorCode errorCode,
+                            String title,
+                            String detail,
+                            String recipient,
+                            String provider,
+                            Duration retryAfter) {
         super(errorCode, ErrorCategory.NOTIFICATION_SENDING, title, detail);
         this.recipient = recipient;
         this.provider = provider;
+        this.retryAfter = retryAfter;
     }
 
     public SmsSendException(NotificationErrorCode errorCode,
@@ -27,6 +41,7 @@ public class SmsSendException extends NotificationException {
         super(errorCode, ErrorCategory.NOTIFICATION_SENDING, title, detail, cause);
         this.recipient = recipient;
         this.provider = provider;
+        this.retryAfter = null;
     }
 
     public String getRecipient() {
@@ -36,4 +51,9 @@ public class SmsSendException extends NotificationException {
     public String getProvider() {
         return provider;
     }
+
+    @Override
+    public Optional<Duration> getRetryAfter() {
+        return Optional.ofNullable(retryAfter);
+    }
 }
@@ -0,0 +1,16 @@
+package bg.sit_varna.sit.si.exception.exceptions;
+
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+
+import java.time.Duration;
+
+/**
+ * Thrown before any call is made, when our own pacing puts the next Telegram slot too far away.
+ * Telegram did not fail, so it must not count against the circuit breaker or be retried in memory.
+ */
+public class TelegramPacingException extends TelegramSendException {
+
+    public TelegramPacingException(String title, String detail, String chatId, Duration retryAfter) {
+        super(NotificationErrorCode.TELEGRAM_RATE_LIMITED, title, detail, chatId, retryAfter);
+    }
+}
@@ -3,16 +3,29 @@ package bg.sit_varna.sit.si.exception.exceptions;
 import bg.sit_varna.sit.si.constant.ErrorCategory;
 import bg.sit_varna.sit.si.constant.NotificationErrorCode;
 
+import java.time.Duration;
+import java.util.Optional;
+
 public class TelegramSendException extends NotificationException {
 
     private final String chatId;
+    private final Duration retryAfter;
 
     public TelegramSendException(NotificationErrorCode errorCode,
                                  String title,
                                  String detail,
                                  String chatId) {
+        this(errorCode, title, detail, chatId, (Duration) null);
+    }
+
+    public TelegramSendException(NotificationErrorCode errorCode,
+                                 String title,
+                                 String detail,
+                                 String chatId,
+                                 Duration retryAfter) {
         super(errorCode, ErrorCategory.NOTIFICATION_SENDING, title, detail);
         this.chatId = chatId;
+        this.retryAfter = retryAfter;
     }
 
     public TelegramSendException(NotificationErrorCode errorCode,
@@ -22,9 +35,15 @@ public class TelegramSendException extends NotificationException {
                                  Throwable cause) {
         super(errorCode, ErrorCategory.NOTIFICATION_SENDING, title, detail, cause);
         this.chatId = chatId;
+        this.retryAfter = null;
     }
 
     public String getChatId() {
         return chatId;
     }
+
+    @Override
+    public Optional<Duration> getRetryAfter() {
+        return Optional.ofNullable(retryAfter);
+    }
 }
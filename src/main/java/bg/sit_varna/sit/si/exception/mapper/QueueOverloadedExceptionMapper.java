@@ -0,0 +1,35 @@
+package bg.sit_varna.sit.si.exception.mapper;
+
+import bg.sit_varna.sit.si.exception.exceptions.ErrorResponse;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+@Provider
+public class QueueOverloadedExceptionMapper implements ExceptionMapper<QueueOverloadedException> {
+
+    private static final Logger LOG = Logger.getLogger(QueueOverloadedExceptionMapper.class);
+
+    @Override
+    public Response toResponse(QueueOverloadedException exception) {
+        LOG.warnf("Shedding load: %s", exception.getMessage());
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .code(exception.getErrorCode().getCode())
+                .title(exception.getTitle())
+                .message(exception.getMessage())
+                .category(exception.getErrorCategory().name())
+                .details(List.of("retryAfter: " + exception.getRetryAfterSeconds() + " seconds"))
+                .build();
+
+        return Response
+                .status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(exception.getRetryAfterSeconds()))
+                .entity(errorResponse)
+                .build();
+    }
+}
@@ -2,9 +2,12 @@ package bg.sit_varna.sit.si.mapper;
 
 import bg.sit_varna.sit.si.dto.model.Notification;
 import bg.sit_varna.sit.si.dto.request.SendNotificationRequest;
+import bg.sit_varna.sit.si.entity.NotificationRecord;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Locale;
 import java.util.UUID;
 
@@ -13,6 +16,23 @@ public interface NotificationMapper {
 
     @Mapping(target = "id", expression = "java(UUID.randomUUID().toString())")
     @Mapping(target = "locale", expression = "java(locale.toLanguageTag())")
+    @Mapping(target = "createdAt", expression = "java(System.currentTimeMillis())")
+    @Mapping(target = "sendAt", expression = "java(request.sendAt() != null ? request.sendAt().toEpochMilli() : 0)")
+    @Mapping(target = "tenant", source = "tenant")
     @Mapping(target = "processedContent", ignore = true)
-    Notification toDomain(SendNotificationRequest request, Locale locale);
+    @Mapping(target = "retryAttempt", ignore = true)
+    @Mapping(target = "lastRetryDelay", ignore = true)
+    Notification toDomain(SendNotificationRequest request, Locale locale, String tenant);
+
+    @Mapping(target = "data", source = "payload")
+    @Mapping(target = "createdAt", expression = "java(toEpochMillis(record.getCreatedAt()))")
+    @Mapping(target = "sendAt", expression = "java(toEpochMillis(record.getSendAt()))")
+    @Mapping(target = "processedContent", ignore = true)
+    @Mapping(target = "retryAttempt", ignore = true)
+    @Mapping(target = "lastRetryDelay", ignore = true)
+    Notification toDomain(NotificationRecord record);
+
+    default long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
 }
@@ -4,7 +4,12 @@ import bg.sit_varna.sit.si.constant.NotificationStatus;
 import bg.sit_varna.sit.si.entity.NotificationRecord;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.hibernate.Timeouts;
+import org.hibernate.cfg.AvailableSettings;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @ApplicationScoped
@@ -17,4 +22,78 @@ public class NotificationRepository implements PanacheRepositoryBase<Notificatio
     public List<NotificationRecord> findByStatus(NotificationStatus status) {
         return find("status", status).list();
     }
+
+    public List<NotificationRecord> findByIds(Collection<String> ids) {
+        return list("id in ?1", ids);
+    }
+
+    /**
+     * Locks up to {@code limit} of the oldest rows in the given status with FOR UPDATE SKIP LOCKED,
+     * so concurrent callers on other pods receive disjoint sets. Must run inside a transaction.
+     */
+    public List<NotificationRecord> lockOldestByStatus(NotificationStatus status, int limit) {
+        return find("status = ?1 order by createdAt", status)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .withHint(AvailableSettings.JAKARTA_LOCK_TIMEOUT, Timeouts.SKIP_LOCKED_MILLI)
+                .page(0, limit)
+                .list();
+    }
+
+    /**
+     * One keyset page of rows in {@code status} last updated before {@code cutoff}, ordered by
+     * {@code (updatedAt, id)} and starting strictly after the given cursor. Served by
+     * {@code idx_notification_status_updated}, so cost depends on the page size, not the table size.
+     */
+    public List<NotificationRecord> findStalePage(NotificationStatus status, LocalDateTime cutoff,
+                                                  LocalDateTime afterUpdatedAt, String afterId, int limit) {
+        return find("status = ?1 and updatedAt < ?2 and (updatedAt > ?3 or (updatedAt = ?3 and id > ?4)) "
+                        + "order by updatedAt, id",
+                status, cutoff, afterUpdatedAt, afterId)
+                .page(0, limit)
+                .list();
+    }
+
+    /**
+     * One keyset page of SCHEDULED rows due before {@code until}, ordered by {@code (sendAt, id)} and
+     * starting strictly after the given cursor. Served by {@code idx_notification_status_send_at}.
+     */
+    public List<NotificationRecord> findScheduledPage(LocalDateTime until, LocalDateTime afterSendAt,
+                                                      String afterId, int limit) {
+        return find("status = ?1 and sendAt < ?2 and (sendAt > ?3 or (sendAt = ?3 and id > ?4)) "
+                        + "order by sendAt, id",
+                NotificationStatus.SCHEDULED, until, afterSendAt, afterId)
+                .page(0, limit)
+                .list();
+    }
+
+    /**
+     * Bumps {@code updatedAt} of those rows that are still QUEUED or PROCESSING, so that recovery
+     * does not take them for orphans.
+     */
+    public int touchActive(Collection<String> ids, LocalDateTime now) {
+        return update("updatedAt = ?1 where id in ?2 and status in ?3",
+                now, ids, List.of(NotificationStatus.QUEUED, NotificationStatus.PROCESSING));
+    }
+
+    /**
+     * Moves a row from {@code expectedStatus} to {@code newStatus} only if it is still in the expected status.
+     *
+     * @return {@code true} if this caller made the transition
+     */
+    public boolean compareAndSetStatus(String id, NotificationStatus expectedStatus, NotificationStatus newStatus,
+                                       LocalDateTime now) {
+        return update("status = ?1, updatedAt = ?2 where id = ?3 and status = ?4",
+                newStatus, now, id, expectedStatus) == 1;
+    }
+
+    /**
+     * Optimistically claims a stale row: succeeds only if nobody changed it since it was read.
+     *
+     * @return {@code true} if this caller won the claim
+     */
+    public boolean claimStale(String id, NotificationStatus expectedStatus, LocalDateTime expectedUpdatedAt,
+                              NotificationStatus newStatus, LocalDateTime now) {
+        return update("status = ?1, updatedAt = ?2 where id = ?3 and status = ?4 and updatedAt = ?5",
+                newStatus, now, id, expectedStatus, expectedUpdatedAt) == 1;
+    }
 }
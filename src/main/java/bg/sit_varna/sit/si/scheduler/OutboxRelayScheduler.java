@@ -0,0 +1,44 @@
+package bg.sit_varna.sit.si.scheduler;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.service.async.QueueMonitor;
+import bg.sit_varna.sit.si.service.core.OutboxRelayService;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+@ApplicationScoped
+public class OutboxRelayScheduler {
+
+    private static final Logger LOG = Logger.getLogger(OutboxRelayScheduler.class);
+
+    @Inject QueueConfig queueConfig;
+    @Inject QueueMonitor queueMonitor;
+    @Inject OutboxRelayService outboxRelayService;
+
+    /**
+     * Drains full batches back to back, then waits for the next tick.
+     */
+    @Scheduled(every = "${queue.outbox.poll-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void relay() {
+        if (!queueConfig.outbox().enabled() || queueMonitor.isDraining()) {
+            return;
+        }
+
+        int batchSize = queueConfig.outbox().batchSize();
+        int total = 0;
+        int published;
+        do {
+            if (queueMonitor.isAboveHighWaterMark()) {
+                break;
+            }
+            published = outboxRelayService.relayBatch();
+            total += published;
+        } while (published == batchSize);
+
+        if (total > 0) {
+            LOG.infof("Outbox relay published %d notifications", total);
+        }
+    }
+}
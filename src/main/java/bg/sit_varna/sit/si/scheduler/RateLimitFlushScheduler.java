@@ -0,0 +1,37 @@
+package bg.sit_varna.sit.si.scheduler;
+
+import bg.sit_varna.sit.si.config.redis.RedisConfig;
+import bg.sit_varna.sit.si.constant.RateLimitMode;
+import bg.sit_varna.sit.si.service.redis.HybridRateLimiter;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+@ApplicationScoped
+public class RateLimitFlushScheduler {
+
+    private static final Logger LOG = Logger.getLogger(RateLimitFlushScheduler.class);
+
+    @Inject RedisConfig redisConfig;
+    @Inject HybridRateLimiter hybridRateLimiter;
+
+    /**
+     * Keeps flushing while draining, so admissions made before shutdown still count cluster-wide.
+     */
+    @Scheduled(every = "${redis.rate-limit.hybrid.flush-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void flush() {
+        if (!redisConfig.rateLimit().enabled() || redisConfig.rateLimit().mode() != RateLimitMode.HYBRID) {
+            return;
+        }
+
+        try {
+            int synced = hybridRateLimiter.flush();
+            if (synced > 0) {
+                LOG.debugf("Synced %d rate limit buckets to Redis", synced);
+            }
+        } catch (Exception e) {
+            LOG.warnf("Rate limit flush failed, retrying next tick: %s", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package bg.sit_varna.sit.si.scheduler;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.service.async.QueueMonitor;
+import bg.sit_varna.sit.si.service.core.NotificationRecoveryService;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+@ApplicationScoped
+public class RecoveryScheduler {
+
+    private static final Logger LOG = Logger.getLogger(RecoveryScheduler.class);
+
+    @Inject QueueConfig queueConfig;
+    @Inject QueueMonitor queueMonitor;
+    @Inject NotificationRecoveryService recoveryService;
+
+    /**
+     * Runs a first pass right after startup, off the startup thread, to pick up work lost in a crash.
+     */
+    void onStart(@Observes StartupEvent ev) {
+        if (queueConfig.recovery().enabled()) {
+            Thread.ofVirtual().name("notification-recovery-startup").start(this::reconcile);
+        }
+    }
+
+    @Scheduled(every = "${queue.recovery.interval}", delayed = "${queue.recovery.interval}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void reconcile() {
+        if (!queueConfig.recovery().enabled() || queueMonitor.isDraining()) {
+            return;
+        }
+
+        try {
+            int recovered = recoveryService.recover();
+            if (recovered > 0) {
+                LOG.infof("Recovery pass re-dispatched %d notifications", recovered);
+            }
+        } catch (Exception e) {
+            LOG.error("Recovery pass failed", e);
+        }
+    }
+}
@@ -1,38 +1,154 @@
 package bg.sit_varna.sit.si.scheduler;
 
+import bg.sit_varna.sit.si.config.redis.RedisConfig;
+import bg.sit_varna.sit.si.constant.NotificationStatus;
 import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
+import bg.sit_varna.sit.si.service.async.QueueMonitor;
 import bg.sit_varna.sit.si.service.core.NotificationService;
+import bg.sit_varna.sit.si.service.core.NotificationStateService;
+import bg.sit_varna.sit.si.service.redis.DeadLetterService;
 import bg.sit_varna.sit.si.service.redis.RedisRetryService;
-import io.quarkus.scheduler.Scheduled;
+import bg.sit_varna.sit.si.service.redis.RedisRetryService.RetryClaim;
+import bg.sit_varna.sit.si.service.retry.RetryDecision;
+import bg.sit_varna.sit.si.service.retry.RetryPolicyEngine;
+import io.quarkus.redis.datasource.pubsub.PubSubCommands;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
 
+/**
+ * Moves due notifications from the Redis cold queue back into the processing queue.
+ *
+ * <p>Runs as a single loop instead of a fixed-rate poll: after each claim it sleeps until the earliest
+ * remaining retry is due, so a retry scheduled 5 seconds out comes back after 5 seconds, and an idle queue
+ * costs one Redis call per {@code redis.retry.max-idle-wait}. Scheduling an earlier retry wakes the loop.</p>
+ */
 @ApplicationScoped
 public class RetryScheduler {
 
     private static final Logger LOG = Logger.getLogger(RetryScheduler.class);
+    private static final Duration ERROR_BACKOFF = Duration.ofSeconds(1);
 
     @Inject RedisRetryService redisRetryService;
     @Inject NotificationService notificationService;
+    @Inject QueueMonitor queueMonitor;
+    @Inject RetryPolicyEngine retryPolicyEngine;
+    @Inject NotificationStateService stateService;
+    @Inject DeadLetterService deadLetterService;
+    @Inject RedisConfig redisConfig;
+    @Inject Clock clock;
+
+    private volatile boolean running;
+    private Thread loop;
+    private PubSubCommands.RedisSubscriber wakeups;
+
+    void onStart(@Observes StartupEvent ev) {
+        wakeups = redisRetryService.subscribeWakeups();
+        running = true;
+        loop = Thread.ofVirtual().name("notification-retry-scheduler").start(this::run);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        running = false;
+        if (loop != null) {
+            loop.interrupt();
+        }
+        if (wakeups != null) {
+            wakeups.unsubscribe();
+        }
+    }
+
+    private void run() {
+        Duration maxIdleWait = redisConfig.retry().maxIdleWait();
+
+        while (running && !queueMonitor.isDraining()) {
+            try {
+                long nextDueAt = processRetries();
+                redisRetryService.awaitDue(nextDueAt, maxIdleWait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.error("Retry scheduler iteration failed", e);
+                try {
+                    Thread.sleep(ERROR_BACKOFF);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
 
     /**
-     * Runs every 60 seconds to check for messages ready to be retried.
+     * Claims due entries page by page until none are left, the queue is full or a hand-off fails.
+     * Nothing claimed is dropped: what was not handed off goes back into the cold queue.
+     *
+     * @return epoch millis at which the loop should look again
      */
-    @Scheduled(every = "60s")
-    public void processRetries() {
-        List<Notification> dueNotifications = redisRetryService.fetchDueNotifications();
+    long processRetries() {
+        int batchSize = redisConfig.retry().claimBatchSize();
+        int resurrected = 0;
 
-        if (!dueNotifications.isEmpty()) {
-            LOG.infof("Resurrecting %d notifications from Redis Cold Queue", dueNotifications.size());
+        RetryClaim claim;
+        do {
+            claim = redisRetryService.claimDue(batchSize);
+            List<Notification> page = claim.due();
 
-            for (Notification notification : dueNotifications) {
+            for (int i = 0; i < page.size(); i++) {
                 // We use the dispatch method to put it back into the internal memory queue
                 // This triggers the whole @Retry cycle again
-                notificationService.retryNotification(notification);
+                try {
+                    notificationService.retryNotification(page.get(i));
+                    resurrected++;
+                } catch (QueueOverloadedException e) {
+                    // Queue is full; put the rest of the page back instead of losing it and stop for now
+                    for (Notification notification : page.subList(i, page.size())) {
+                        redisRetryService.scheduleRetry(notification, e.getRetryAfterSeconds());
+                    }
+                    LOG.warnf("Queue full after resurrecting %d notifications; deferring the rest", resurrected);
+                    return clock.millis() + Duration.ofSeconds(e.getRetryAfterSeconds()).toMillis();
+                } catch (Exception e) {
+                    // The failed entry costs a cold attempt, so a poison entry ends in the dead-letter store;
+                    // the rest of the page goes back untouched and is tried again after a short pause
+                    LOG.errorf(e, "Resurrecting notification %s failed", page.get(i).getId());
+                    requeueFailed(page.get(i), e);
+                    for (Notification notification : page.subList(i + 1, page.size())) {
+                        redisRetryService.scheduleRetry(notification, ERROR_BACKOFF);
+                    }
+                    return clock.millis() + ERROR_BACKOFF.toMillis();
+                }
             }
+        } while (claim.due().size() == batchSize);
+
+        if (resurrected > 0) {
+            LOG.infof("Resurrected %d notifications from Redis Cold Queue", resurrected);
         }
+        return claim.nextDueAt();
+    }
+
+    private void requeueFailed(Notification notification, Exception failure) {
+        RetryDecision decision = retryPolicyEngine.decideColdRetry(notification, failure);
+        if (decision.retry()) {
+            redisRetryService.scheduleRetry(notification.forRetry(decision.delay().toMillis()), decision.delay());
+            return;
+        }
+
+        LOG.errorf("Notification [%s] will not be retried (%s): %s",
+                notification.getId(), decision.retryClass(), decision.reason());
+        stateService.updateStatus(notification.getId(), NotificationStatus.FAILED, decision.reason(), null);
+        String errorCode = failure instanceof NotificationException notificationException
+                ? notificationException.getCode()
+                : failure.getClass().getSimpleName();
+        deadLetterService.add(notification, errorCode, failure.getMessage());
     }
 }
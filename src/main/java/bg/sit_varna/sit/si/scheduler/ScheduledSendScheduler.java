@@ -0,0 +1,35 @@
+package bg.sit_varna.sit.si.scheduler;
+
+import bg.sit_varna.sit.si.service.async.QueueMonitor;
+import bg.sit_varna.sit.si.service.core.ScheduledSendService;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+@ApplicationScoped
+public class ScheduledSendScheduler {
+
+    private static final Logger LOG = Logger.getLogger(ScheduledSendScheduler.class);
+
+    @Inject QueueMonitor queueMonitor;
+    @Inject ScheduledSendService scheduledSendService;
+
+    /**
+     * Moves scheduled sends that have come within the horizon from Redis into the timing wheel.
+     * The first run right after startup also re-arms everything left by a previous process.
+     */
+    @Scheduled(every = "${queue.schedule.load-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void loadHorizon() {
+        if (queueMonitor.isDraining()) {
+            return;
+        }
+
+        try {
+            int loaded = scheduledSendService.loadHorizon();
+            LOG.debugf("Timing wheel horizon refreshed from %d stored timers", loaded);
+        } catch (Exception e) {
+            LOG.error("Failed to load scheduled notifications", e);
+        }
+    }
+}
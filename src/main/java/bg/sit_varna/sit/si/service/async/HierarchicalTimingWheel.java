@@ -0,0 +1,226 @@
+package bg.sit_varna.sit.si.service.async;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel (Varghese &amp; Lauck) with O(1) insert and cancel.
+ *
+ * <p>The lowest level has {@code wheelSize} buckets of {@code tickMillis} each. A timer beyond its span
+ * goes to an overflow level whose tick is the span of the level below, and so on. As the clock passes
+ * a bucket of a higher level, its timers are cascaded down into finer buckets. Each bucket is a doubly
+ * linked list and every timer is indexed by id, so cancelling never scans.</p>
+ *
+ * <p>Timers fire once the clock has passed the end of their tick, so they may be up to one tick
+ * late but never early. Not thread safe on its own; all access is synchronized on the instance.</p>
+ *
+ * @param <T> payload handed back when the timer fires
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final Level root;
+    private final Map<String, Timer<T>> timers = new HashMap<>();
+
+    /** Start of the tick in progress; every earlier tick has been fired. */
+    private long currentTime;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize at least 2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        this.root = new Level(tickMillis, currentTime);
+    }
+
+    /**
+     * Adds a timer. Re-adding an id that is already pending is a no-op.
+     *
+     * @return {@code false} if the deadline lies in a tick that has already been fired, in which
+     *         case nothing is stored and the caller should fire it right away
+     */
+    public synchronized boolean add(String id, long deadlineMillis, T payload) {
+        if (timers.containsKey(id)) {
+            return true;
+        }
+
+        Timer<T> timer = new Timer<>(id, deadlineMillis, payload);
+        if (!place(timer)) {
+            return false;
+        }
+        timers.put(id, timer);
+        return true;
+    }
+
+    /**
+     * @return {@code true} if a pending timer was removed
+     */
+    public synchronized boolean cancel(String id) {
+        Timer<T> timer = timers.remove(id);
+        if (timer == null) {
+            return false;
+        }
+        timer.unlink();
+        return true;
+    }
+
+    public synchronized boolean contains(String id) {
+        return timers.containsKey(id);
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Moves the clock forward tick by tick and collects every timer whose tick has fully elapsed.
+     */
+    public synchronized List<T> advanceTo(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+
+        while (currentTime + tickMillis <= nowMillis) {
+            Bucket<T> elapsed = root.bucketFor(currentTime);
+            for (Timer<T> timer = elapsed.pollFirst(); timer != null; timer = elapsed.pollFirst()) {
+                timers.remove(timer.id);
+                expired.add(timer.payload);
+            }
+
+            currentTime += tickMillis;
+            cascade();
+        }
+        return expired;
+    }
+
+    /**
+     * Realigns every level to the new time and, for each level whose own tick has just begun,
+     * moves that bucket's timers down into finer buckets. Coarse levels go first so the timers
+     * they hand down are cascaded again by the finer levels in the same step.
+     */
+    private void cascade() {
+        List<Level> started = new ArrayList<>();
+        for (Level level = root; level != null; level = level.overflow) {
+            level.currentTime = currentTime - Math.floorMod(currentTime, level.tick);
+            if (level != root && level.currentTime == currentTime) {
+                started.add(level);
+            }
+        }
+
+        for (int i = started.size() - 1; i >= 0; i--) {
+            Bucket<T> bucket = started.get(i).bucketFor(currentTime);
+            for (Timer<T> timer = bucket.pollFirst(); timer != null; timer = bucket.pollFirst()) {
+                if (!place(timer)) {
+                    root.bucketFor(currentTime).append(timer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the timer in the finest level whose span still covers its deadline.
+     *
+     * @return {@code false} if the deadline lies before the current tick
+     */
+    private boolean place(Timer<T> timer) {
+        if (timer.deadline < currentTime) {
+            return false;
+        }
+
+        Level level = root;
+        while (timer.deadline >= level.currentTime + level.span) {
+            level = level.overflow();
+        }
+        level.bucketFor(timer.deadline).append(timer);
+        return true;
+    }
+
+    private final class Level {
+
+        private final long tick;
+        private final long span;
+        private final Bucket<T>[] buckets;
+        private long currentTime;
+        private Level overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tick, long currentTime) {
+            this.tick = tick;
+            this.span = tick * wheelSize;
+            this.currentTime = currentTime;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        Bucket<T> bucketFor(long time) {
+            return buckets[(int) Math.floorMod(Math.floorDiv(time, tick), (long) wheelSize)];
+        }
+
+        Level overflow() {
+            if (overflow == null) {
+                long now = HierarchicalTimingWheel.this.currentTime;
+                overflow = new Level(span, now - Math.floorMod(now, span));
+            }
+            return overflow;
+        }
+    }
+
+    private static final class Bucket<T> {
+
+        private final Timer<T> head = new Timer<>(null, 0, null);
+
+        Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void append(Timer<T> timer) {
+            timer.bucket = this;
+            timer.prev = head.prev;
+            timer.next = head;
+            head.prev.next = timer;
+            head.prev = timer;
+        }
+
+        Timer<T> pollFirst() {
+            Timer<T> first = head.next;
+            if (first == head) {
+                return null;
+            }
+            first.unlink();
+            return first;
+        }
+    }
+
+    private static final class Timer<T> {
+
+        private final String id;
+        private final long deadline;
+        private final T payload;
+        private Bucket<T> bucket;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        Timer(String id, long deadline, T payload) {
+            this.id = id;
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+
+        void unlink() {
+            if (bucket == null) {
+                return;
+            }
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+            bucket = null;
+        }
+    }
+}
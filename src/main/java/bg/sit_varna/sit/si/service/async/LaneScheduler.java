@@ -0,0 +1,271 @@
+package bg.sit_varna.sit.si.service.async;
+
+import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.service.channel.ChannelBulkheads;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Work queue of one priority lane, shared fairly between tenants by deficit round-robin.
+ *
+ * <p>Every admitted notification is queued here straight away, in its tenant's queue, so a tenant with a
+ * deep backlog never stands in front of the others. The tenants with queued work take turns: on its turn a
+ * tenant earns its quantum (weight) and may start one notification per unit until the quantum is spent or
+ * its queue is empty. Under contention each tenant therefore gets workers in proportion to its weight,
+ * however much it has queued; without contention a notification starts at once.</p>
+ *
+ * <p>A notification starts only when both a lane worker and a slot of its channel's bulkhead are free.
+ * A tenant's queue is split by channel, so work for a saturated channel waits without holding a worker
+ * and without blocking the same tenant's other channels. A notification whose turn came while its channel
+ * was saturated is rejected after the bulkhead's {@code max-wait}.</p>
+ */
+public class LaneScheduler {
+
+    private static final NotificationChannel[] CHANNELS = NotificationChannel.values();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Flow> flows = new HashMap<>();
+    private final ArrayDeque<Flow> active = new ArrayDeque<>();
+    private final ToIntFunction<String> quantumOf;
+    private final ChannelBulkheads bulkheads;
+    private final Executor executor;
+    private final BiConsumer<Notification, NotificationException> onRejected;
+    private int available;
+    private int queued;
+
+    /**
+     * @param permits    notifications processed at the same time
+     * @param quantumOf  notifications a tenant may start per turn, at least 1
+     * @param executor   runs the work and rejections, never on the submitting thread
+     * @param onRejected called for a notification that waited too long for its channel
+     */
+    public LaneScheduler(int permits, ToIntFunction<String> quantumOf, ChannelBulkheads bulkheads,
+                         Executor executor, BiConsumer<Notification, NotificationException> onRejected) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        this.available = permits;
+        this.quantumOf = quantumOf;
+        this.bulkheads = bulkheads;
+        this.executor = executor;
+        this.onRejected = onRejected;
+    }
+
+    /**
+     * Queues the notification behind the tenant's earlier work. Never blocks.
+     *
+     * @param work runs with a lane worker and a channel slot held
+     * @return completes once the work ran or the notification was rejected
+     */
+    public CompletableFuture<Void> submit(String tenant, Notification notification, Runnable work) {
+        Entry entry = new Entry(notification, work);
+        lock.lock();
+        try {
+            Flow flow = flows.computeIfAbsent(tenant, key -> new Flow(key, Math.max(1, quantumOf.applyAsInt(key))));
+            if (flow.size == 0) {
+                active.addLast(flow);
+            }
+            flow.add(entry);
+            queued++;
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+        return entry.done;
+    }
+
+    /**
+     * Starts whatever can start now. Also called when a channel slot was freed by another lane.
+     */
+    public void dispatch() {
+        List<Runnable> actions = new ArrayList<>();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            // Tenants visited in a row that could not start anything; a full round means nothing can start
+            int idle = 0;
+            while (available > 0 && idle < active.size()) {
+                Flow flow = active.peekFirst();
+                if (flow.deficit == 0) {
+                    // Start of the tenant's turn
+                    flow.deficit = flow.quantum;
+                }
+
+                Entry entry = flow.next(now, actions);
+                if (entry == null) {
+                    // Every channel the tenant has work for is saturated; its turn ends
+                    active.pollFirst();
+                    flow.deficit = 0;
+                    if (flow.size == 0) {
+                        forget(flow);
+                    } else {
+                        active.addLast(flow);
+                        idle++;
+                    }
+                    continue;
+                }
+
+                idle = 0;
+                available--;
+                queued--;
+                flow.deficit--;
+                actions.add(() -> executor.execute(() -> run(entry)));
+
+                if (flow.size == 0) {
+                    active.pollFirst();
+                    forget(flow);
+                } else if (flow.deficit == 0) {
+                    active.addLast(active.pollFirst());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        actions.forEach(Runnable::run);
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run(Entry entry) {
+        try {
+            entry.work.run();
+            entry.done.complete(null);
+        } catch (Throwable e) {
+            entry.done.completeExceptionally(e);
+        } finally {
+            lock.lock();
+            try {
+                available++;
+            } finally {
+                lock.unlock();
+            }
+            // Wakes every lane waiting for the channel; this one is dispatched explicitly in case bulkheads are off
+            bulkheads.release(entry.notification.getChannel());
+            dispatch();
+        }
+    }
+
+    private void reject(Entry entry) {
+        NotificationException rejection = bulkheads.reject(entry.notification.getChannel());
+        executor.execute(() -> {
+            try {
+                onRejected.accept(entry.notification, rejection);
+                entry.done.complete(null);
+            } catch (Throwable e) {
+                entry.done.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * An idle tenant keeps no credit (as in DRR) and no memory, so unbounded keys cannot pile up.
+     */
+    private void forget(Flow flow) {
+        flow.deficit = 0;
+        flows.remove(flow.key);
+    }
+
+    private final class Flow {
+        private final String key;
+        private final int quantum;
+        private final Map<NotificationChannel, ArrayDeque<Entry>> queues = new EnumMap<>(NotificationChannel.class);
+        private int size;
+        private int deficit;
+        // Channel to look at first, so a tenant's channels take turns as well
+        private int cursor;
+
+        private Flow(String key, int quantum) {
+            this.key = key;
+            this.quantum = quantum;
+        }
+
+        private void add(Entry entry) {
+            queues.computeIfAbsent(entry.notification.getChannel(), channel -> new ArrayDeque<>()).addLast(entry);
+            size++;
+        }
+
+        /**
+         * Takes the first entry whose channel has a free slot, holding that slot for it.
+         */
+        private Entry next(long now, List<Runnable> actions) {
+            for (int i = 0; i < CHANNELS.length; i++) {
+                NotificationChannel channel = CHANNELS[(cursor + i) % CHANNELS.length];
+                ArrayDeque<Entry> queue = queues.get(channel);
+                if (queue == null || queue.isEmpty()) {
+                    continue;
+                }
+
+                Entry head = queue.peekFirst();
+                if (bulkheads.tryAcquire(channel)) {
+                    queue.pollFirst();
+                    size--;
+                    if (head.waiting) {
+                        bulkheads.stopWaiting(channel);
+                    }
+                    cursor = (cursor + i + 1) % CHANNELS.length;
+                    return head;
+                }
+                awaitSlot(channel, queue, head, now, actions);
+            }
+            return null;
+        }
+
+        private void awaitSlot(NotificationChannel channel, ArrayDeque<Entry> queue, Entry head, long now,
+                               List<Runnable> actions) {
+            long maxWait = bulkheads.maxWait(channel).toNanos();
+            if (!head.waiting) {
+                if (bulkheads.startWaiting(channel)) {
+                    head.waiting = true;
+                    head.waitingSince = now;
+                    // Look again when the wait runs out, even if no slot is freed in the meantime
+                    actions.add(() -> CompletableFuture.delayedExecutor(maxWait, TimeUnit.NANOSECONDS, executor)
+                            .execute(LaneScheduler.this::dispatch));
+                    return;
+                }
+            } else if (now - head.waitingSince < maxWait) {
+                return;
+            } else {
+                bulkheads.stopWaiting(channel);
+            }
+
+            queue.pollFirst();
+            size--;
+            queued--;
+            actions.add(() -> reject(head));
+        }
+    }
+
+    private static final class Entry {
+        private final Notification notification;
+        private final Runnable work;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // Its turn came while the channel was saturated, at System.nanoTime() waitingSince
+        private boolean waiting;
+        private long waitingSince;
+
+        private Entry(Notification notification, Runnable work) {
+            this.notification = notification;
+            this.work = work;
+        }
+    }
+}
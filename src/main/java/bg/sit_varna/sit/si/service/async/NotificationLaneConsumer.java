@@ -0,0 +1,30 @@
+package bg.sit_varna.sit.si.service.async;
+
+import bg.sit_varna.sit.si.constant.NotificationPriority;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+
+/**
+ * Consumes the in-memory lanes. Each channel is drained independently, so the high-priority
+ * lane keeps flowing while the normal lane is backed up.
+ *
+ * <p>Nothing waits here: every notification is moved straight into its tenant's queue of the lane,
+ * where tenant fairness applies to the whole backlog rather than to the head of the emitter buffer.</p>
+ */
+@ApplicationScoped
+public class NotificationLaneConsumer {
+
+    @Inject PriorityLanes lanes;
+
+    @Incoming("notification-queue-priority")
+    public void consumeHighPriority(Notification notification) {
+        lanes.submit(NotificationPriority.HIGH, notification);
+    }
+
+    @Incoming("notification-queue")
+    public void consumeNormal(Notification notification) {
+        lanes.submit(NotificationPriority.NORMAL, notification);
+    }
+}
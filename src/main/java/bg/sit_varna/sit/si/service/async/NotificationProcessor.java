@@ -3,20 +3,24 @@ package bg.sit_varna.sit.si.service.async;
 import bg.sit_varna.sit.si.config.app.ApplicationConfig;
 import bg.sit_varna.sit.si.constant.NotificationStatus;
 import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
 import bg.sit_varna.sit.si.service.channel.strategies.ChannelStrategy;
 import bg.sit_varna.sit.si.service.channel.strategies.ChannelStrategyFactory;
 import bg.sit_varna.sit.si.service.core.NotificationStateService;
+import bg.sit_varna.sit.si.service.redis.DeadLetterService;
 import bg.sit_varna.sit.si.service.redis.MetricsService;
 import bg.sit_varna.sit.si.service.redis.RedisRetryService;
+import bg.sit_varna.sit.si.service.retry.RetryDecision;
+import bg.sit_varna.sit.si.service.retry.RetryPolicyEngine;
 import bg.sit_varna.sit.si.template.core.TemplateService;
-import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.faulttolerance.api.CustomBackoff;
+import io.smallrye.faulttolerance.api.RetryWhen;
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.context.control.ActivateRequestContext;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.Retry;
-import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.jboss.logging.Logger;
 import org.jboss.logging.MDC;
 
@@ -33,18 +37,22 @@ public class NotificationProcessor {
     @Inject MetricsService metricsService;
     @Inject ChannelStrategyFactory channelStrategyFactory;
     @Inject NotificationStateService stateService;
+    @Inject QueueMonitor queueMonitor;
+    @Inject RetryPolicyEngine retryPolicyEngine;
+    @Inject DeadLetterService deadLetterService;
 
-    @Incoming("notification-queue")
-    @RunOnVirtualThread
     @ActivateRequestContext
     @Retry // Layer 1: Fast in-memory retry (configured in application.properties)
+    @RetryWhen(exception = RetryPolicyEngine.Immediate.class) // Only failures that can clear within seconds
+    @CustomBackoff(RetryPolicyEngine.RetryAfterBackoff.class) // Honour the provider's retry_after
     @Fallback(fallbackMethod = "fallbackToRedis") // Layer 2: If Layer 1 fails, goes here
     public void processNotification(Notification notification) {
         LOG.infof("Processing async notification [%s] for: %s via %s",
                 notification.getId(), notification.getRecipient(), notification.getChannel());
         MDC.put("notificationId", notification.getId());
 
-        if (shuttingDown) {
+        if (shuttingDown || !queueMonitor.start(notification.getId())) {
+            // Drain deadline passed: it stays tracked as not started, and ShutdownDrainer hands it off and completes it
             LOG.warn("App is shutting down. Skipping notification: " + notification.getId());
             return; // Stop immediately
         }
@@ -58,6 +66,7 @@ public class NotificationProcessor {
                     .orElseThrow(() -> new UnsupportedOperationException(
                             "No strategy configured for channel: " + notification.getChannel()));
 
+            // The channel's bulkhead slot is already held, see LaneScheduler
             strategy.send(notification);
 
             stateService.updateStatus(
@@ -68,6 +77,7 @@ public class NotificationProcessor {
             );
 
             metricsService.recordNotification(notification.getChannel(), NotificationStatus.SENT);
+            queueMonitor.complete(notification.getId());
 
             LOG.infof("Async processing completed for: %s", notification.getRecipient());
         } catch (Exception e) {
@@ -82,28 +92,45 @@ public class NotificationProcessor {
     }
 
     /**
-     * Fallback method called when all @Retry attempts fail.
-     * Moves the notification to the Redis "Cold Queue" for later retrial.
+     * Fallback method called when all @Retry attempts fail, or when the failure was not worth retrying.
+     * {@link RetryPolicyEngine} decides from the error code whether the notification goes to the Redis
+     * "Cold Queue" (after a jittered exponential delay, or the provider's retry_after if longer) or straight
+     * to the dead-letter store: bad recipients and bad data are never retried, and every failure gives up
+     * after {@code redis.retry.max-attempts} cold retries.
      */
-    public void fallbackToRedis(Notification notification) {
+    public void fallbackToRedis(Notification notification, Throwable failure) {
         MDC.put("notificationId", notification.getId());
 
         try {
-            LOG.warnf("All immediate retries failed for notification [%s]. Moving to Redis Cold Queue.",
-                    notification.getId());
+            metricsService.recordNotification(notification.getChannel(), NotificationStatus.FAILED);
+
+            RetryDecision decision = retryPolicyEngine.decideColdRetry(notification, failure);
+            if (!decision.retry()) {
+                LOG.errorf("Notification [%s] will not be retried (%s): %s",
+                        notification.getId(), decision.retryClass(), decision.reason());
+
+                stateService.updateStatus(notification.getId(), NotificationStatus.FAILED, decision.reason(), null);
+                deadLetterService.add(notification, errorCodeOf(failure), failure.getMessage());
+                return;
+            }
+
+            long delayMillis = decision.delay().toMillis();
+            Notification retry = notification.forRetry(delayMillis);
+
+            LOG.warnf("Immediate delivery failed for notification [%s] (%s). Cold retry %d/%d in %d ms.",
+                    notification.getId(), decision.retryClass(), retry.getRetryAttempt(),
+                    retryPolicyEngine.getMaxColdAttempts(), delayMillis);
 
             stateService.updateStatus(
                     notification.getId(),
                     NotificationStatus.FAILED,
-                    "Immediate retries exhausted. Moved to Redis queue.",
+                    "Immediate retries exhausted. Moved to Redis queue (cold retry " + retry.getRetryAttempt() + ").",
                     null
             );
 
-            metricsService.recordNotification(notification.getChannel(), NotificationStatus.FAILED);
-
-            // Schedule for 5 minutes later (Cold Retry)
-            redisRetryService.scheduleRetry(notification, 300);
+            redisRetryService.scheduleRetry(retry, decision.delay());
         } finally {
+            queueMonitor.complete(notification.getId());
             MDC.remove("notificationId");
         }
     }
@@ -113,6 +140,17 @@ public class NotificationProcessor {
         this.shuttingDown = true;
     }
 
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    private String errorCodeOf(Throwable failure) {
+        if (failure instanceof NotificationException notificationException) {
+            return notificationException.getCode();
+        }
+        return failure.getClass().getSimpleName();
+    }
+
     private String processContent(Notification request) {
         if (request.getTemplateName() != null && !request.getTemplateName().isBlank()) {
             return templateService.renderTemplate(
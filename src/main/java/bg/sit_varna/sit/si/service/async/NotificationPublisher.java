@@ -0,0 +1,98 @@
+package bg.sit_varna.sit.si.service.async;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.constant.NotificationPriority;
+import bg.sit_varna.sit.si.constant.QueueTransport;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
+import bg.sit_varna.sit.si.service.core.MessageService;
+import bg.sit_varna.sit.si.service.redis.NotificationStreamService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.OnOverflow;
+import org.jboss.logging.Logger;
+
+/**
+ * Hands admitted notifications to the configured queue transport, on the lane matching their priority.
+ */
+@ApplicationScoped
+public class NotificationPublisher {
+
+    private static final Logger LOG = Logger.getLogger(NotificationPublisher.class);
+
+    @Inject QueueConfig queueConfig;
+    @Inject NotificationStreamService streamService;
+    @Inject QueueMonitor queueMonitor;
+    @Inject PriorityLanes lanes;
+    @Inject RecipientPartitions partitions;
+    @Inject MessageService messageService;
+
+    @Inject
+    @Channel("notification-queue")
+    @OnOverflow(OnOverflow.Strategy.BUFFER) // bounded by mp.messaging.emitter.default-buffer-size
+    Emitter<Notification> notificationEmitter;
+
+    @Inject
+    @Channel("notification-queue-priority")
+    @OnOverflow(OnOverflow.Strategy.BUFFER)
+    Emitter<Notification> priorityEmitter;
+
+    public void publish(Notification notification) {
+        NotificationPriority priority = lanes.resolve(notification);
+
+        if (queueConfig.transport() == QueueTransport.REDIS_STREAMS) {
+            String messageId = streamService.publish(priority, notification);
+            LOG.debugf("Notification %s appended to %s stream as %s", notification.getId(), priority, messageId);
+            return;
+        }
+
+        if (queueConfig.ordering().enabled()) {
+            publishOrdered(priority, notification);
+            return;
+        }
+
+        // The lane consumers drain the emitters straight into the lanes' tenant queues, so the emitter
+        // buffer rarely fills up; queue.capacity bounds everything admitted but not yet processed
+        if (queueMonitor.depth() >= queueConfig.capacity()) {
+            throw overloaded();
+        }
+
+        queueMonitor.track(notification);
+        try {
+            if (priority == NotificationPriority.HIGH) {
+                priorityEmitter.send(notification);
+            } else {
+                notificationEmitter.send(notification);
+            }
+        } catch (IllegalStateException e) {
+            // Emitter buffer is full (queue.capacity); the record stays QUEUED in the database
+            queueMonitor.complete(notification.getId());
+            throw overloaded();
+        }
+    }
+
+    /**
+     * Bypasses the channel and hands the notification straight to its recipient's partition,
+     * so the submission order seen here is the delivery order.
+     */
+    private void publishOrdered(NotificationPriority priority, Notification notification) {
+        if (queueMonitor.depth() >= queueConfig.capacity()) {
+            throw overloaded();
+        }
+
+        queueMonitor.track(notification);
+        partitions.submit(notification.getRecipient(), () -> lanes.execute(priority, notification));
+    }
+
+    private QueueOverloadedException overloaded() {
+        return new QueueOverloadedException(
+                messageService.getTitle(NotificationErrorCode.QUEUE_OVERLOADED),
+                messageService.getMessage(NotificationErrorCode.QUEUE_OVERLOADED,
+                        queueMonitor.depth(), queueConfig.retryAfterSeconds()),
+                queueConfig.retryAfterSeconds()
+        );
+    }
+}
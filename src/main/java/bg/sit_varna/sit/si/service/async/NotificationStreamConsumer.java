@@ -0,0 +1,236 @@
+package bg.sit_varna.sit.si.service.async;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.NotificationPriority;
+import bg.sit_varna.sit.si.constant.QueueTransport;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.service.redis.NotificationStreamService;
+import io.quarkus.redis.datasource.stream.ClaimedMessages;
+import io.quarkus.redis.datasource.stream.StreamMessage;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pulls notifications from the shared Redis Streams when {@code queue.transport=redis-streams}.
+ *
+ * <p>Every priority lane has its own streams (one per tenant, see {@link NotificationStreamService}) and
+ * its own reader. The reader keeps up to {@code queue.stream.prefetch} messages of the lane in hand and
+ * reads every tenant's stream evenly, then hands them to {@link PriorityLanes}, whose scheduler shares
+ * the workers between tenants. A message is acknowledged only after
+ * {@link NotificationProcessor#processNotification} returns, which includes the case where it was handed
+ * over to the Redis retry queue by the fallback. Anything left pending by a crashed pod is reclaimed with
+ * XAUTOCLAIM once it has been idle for {@code queue.stream.claim-idle}.</p>
+ */
+@ApplicationScoped
+public class NotificationStreamConsumer {
+
+    private static final Logger LOG = Logger.getLogger(NotificationStreamConsumer.class);
+    private static final String CLAIM_START = "0-0";
+
+    @Inject QueueConfig queueConfig;
+    @Inject NotificationStreamService streamService;
+    @Inject NotificationProcessor processor;
+    @Inject PriorityLanes lanes;
+    @Inject RecipientPartitions partitions;
+
+    private volatile boolean running;
+    private String consumerName;
+    private final List<LaneReader> readers = new ArrayList<>();
+
+    void onStart(@Observes StartupEvent ev) {
+        if (queueConfig.transport() != QueueTransport.REDIS_STREAMS) {
+            return;
+        }
+
+        consumerName = queueConfig.stream().consumer().orElseGet(NotificationStreamConsumer::hostName);
+        running = true;
+
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            streamService.ensureGroup(priority);
+            int prefetch = Math.max(lanes.concurrency(priority), queueConfig.stream().prefetch());
+            LaneReader reader = new LaneReader(priority, prefetch);
+            reader.thread = Thread.ofVirtual()
+                    .name("notification-stream-reader-" + priority.name().toLowerCase())
+                    .start(reader::pollLoop);
+            readers.add(reader);
+
+            LOG.infof("Consuming streams %s as '%s' in group '%s' (concurrency %d, prefetch %d)",
+                    reader.keys, consumerName, queueConfig.stream().group(), lanes.concurrency(priority), prefetch);
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        readers.forEach(reader -> reader.thread.interrupt());
+
+        // Every message in hand has finished once its reader has all of its slots back
+        long deadline = System.nanoTime() + queueConfig.drainTimeout().toNanos();
+        try {
+            for (LaneReader reader : readers) {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!reader.slots.tryAcquire(reader.prefetch, remaining, TimeUnit.NANOSECONDS)) {
+                    LOG.warn("Stream workers did not finish in time; unacknowledged messages will be reclaimed");
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class LaneReader {
+
+        private final NotificationPriority priority;
+        private final int prefetch;
+        // One per message read and not yet completed
+        private final Semaphore slots;
+        private final List<String> keys;
+        private final Map<String, String> claimCursors = new HashMap<>();
+        private long nextClaimAt;
+        private Thread thread;
+
+        LaneReader(NotificationPriority priority, int prefetch) {
+            this.priority = priority;
+            this.prefetch = prefetch;
+            this.slots = new Semaphore(prefetch);
+            this.keys = streamService.streamKeys(priority);
+            keys.forEach(key -> claimCursors.put(key, CLAIM_START));
+        }
+
+        void pollLoop() {
+            while (running) {
+                int capacity = 0;
+                try {
+                    slots.acquire();
+                    capacity = 1 + slots.drainPermits();
+
+                    // Every tenant's stream gets the same share of the read
+                    int perStream = (capacity + keys.size() - 1) / keys.size();
+                    List<StreamMessage<String, String, Notification>> messages = nextBatch(perStream);
+
+                    for (StreamMessage<String, String, Notification> message : messages) {
+                        dispatch(message);
+                        capacity--;
+                    }
+                    if (capacity < 0) {
+                        // Rounding up the share per stream read a few more than there were slots for
+                        slots.acquireUninterruptibly(-capacity);
+                        capacity = 0;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    if (running) {
+                        LOG.errorf(e, "Failed to read from %s notification stream", priority);
+                        pause();
+                    }
+                } finally {
+                    if (capacity > 0) {
+                        slots.release(capacity);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Prefers stale pending messages over new ones so work abandoned by a dead pod is not starved.
+         */
+        private List<StreamMessage<String, String, Notification>> nextBatch(int perStream) {
+            if (System.nanoTime() >= nextClaimAt) {
+                int claimCount = Math.min(perStream, queueConfig.stream().claimBatchSize());
+                List<StreamMessage<String, String, Notification>> reclaimed = new ArrayList<>();
+                boolean passDone = true;
+                for (String key : keys) {
+                    ClaimedMessages<String, String, Notification> claimed =
+                            streamService.claimStale(key, consumerName, claimCursors.get(key), claimCount);
+                    claimCursors.put(key, claimed.getId());
+                    passDone &= CLAIM_START.equals(claimed.getId());
+                    reclaimed.addAll(claimed.getMessages());
+                }
+                if (passDone) {
+                    // Full pass over every pending list done; rescan after half the idle threshold
+                    nextClaimAt = System.nanoTime() + queueConfig.stream().claimIdle().toNanos() / 2;
+                }
+
+                if (!reclaimed.isEmpty()) {
+                    LOG.infof("Reclaimed %d stale notifications from the %s streams", reclaimed.size(), priority);
+                    return reclaimed;
+                }
+            }
+
+            return streamService.read(priority, consumerName, perStream);
+        }
+
+        private void dispatch(StreamMessage<String, String, Notification> message) {
+            Notification notification = streamService.payload(message);
+            if (notification == null) {
+                LOG.errorf("Stream message %s has no notification payload, discarding", message.id());
+                complete(message, null);
+                return;
+            }
+
+            if (queueConfig.ordering().enabled()) {
+                // Submitted from this single reader thread, so stream order is kept per recipient
+                partitions.submit(notification.getRecipient(), () -> lanes.execute(priority, notification))
+                        .whenComplete((ignored, failure) -> complete(message, failure));
+                return;
+            }
+
+            // Queued in the tenant's queue of the lane; runs once it is the tenant's turn
+            lanes.submit(priority, notification)
+                    .whenComplete((ignored, failure) -> complete(message, failure));
+        }
+
+        private void complete(StreamMessage<String, String, Notification> message, Throwable failure) {
+            try {
+                if (failure != null) {
+                    LOG.errorf(failure, "Stream message %s left pending after failure", message.id());
+                    return;
+                }
+                if (processor.isShuttingDown()) {
+                    // Processing was skipped; leave it pending for another consumer
+                    return;
+                }
+                streamService.acknowledge(message);
+            } catch (Exception e) {
+                LOG.errorf(e, "Failed to acknowledge stream message %s", message.id());
+            } finally {
+                slots.release();
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(queueConfig.stream().blockTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "consumer-" + UUID.randomUUID();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package bg.sit_varna.sit.si.service.async;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.NotificationPriority;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.service.channel.ChannelBulkheads;
+import bg.sit_varna.sit.si.service.core.TenantService;
+import bg.sit_varna.sit.si.service.retry.RetryBudgets;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Separates time-critical notifications from bulk traffic. Each lane has its own concurrency limit,
+ * so a burst of reminders can never occupy the workers that verification codes need, and its own
+ * latency timers to verify the delivery SLA per lane.
+ *
+ * <p>Within a lane, admitted notifications are queued per tenant by {@link LaneScheduler} and workers
+ * are shared between tenants by deficit round-robin, weighted by {@code tenants.*.weight}, so one
+ * product with a deep backlog cannot starve the others.</p>
+ *
+ * <p>A notification only gets a worker once its channel's bulkhead has a free slot. A notification
+ * waiting for a saturated channel (e.g. Telegram timing out) therefore holds none of the lane's shared
+ * workers, and the other channels keep flowing.</p>
+ */
+@ApplicationScoped
+public class PriorityLanes {
+
+    private final NotificationProcessor processor;
+    private final RetryBudgets retryBudgets;
+    private final TenantService tenantService;
+    private final Set<String> highPriorityTemplates;
+    private final Map<NotificationPriority, Lane> lanes = new EnumMap<>(NotificationPriority.class);
+
+    @Inject
+    public PriorityLanes(NotificationProcessor processor, RetryBudgets retryBudgets, ChannelBulkheads channelBulkheads,
+                         TenantService tenantService, QueueConfig queueConfig, MeterRegistry registry) {
+        this.processor = processor;
+        this.retryBudgets = retryBudgets;
+        this.tenantService = tenantService;
+        this.highPriorityTemplates = Set.copyOf(queueConfig.lanes().highPriorityTemplates());
+
+        Executor workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            int concurrency = priority == NotificationPriority.HIGH
+                    ? queueConfig.lanes().highConcurrency()
+                    : queueConfig.lanes().normalConcurrency();
+            LaneScheduler scheduler = new LaneScheduler(concurrency, tenantService::weight, channelBulkheads,
+                    workers, this::reject);
+            // A slot freed by either lane may let the other one start its waiting work
+            channelBulkheads.onRelease(scheduler::dispatch);
+            lanes.put(priority, new Lane(priority, concurrency, scheduler, registry));
+        }
+    }
+
+    /**
+     * Explicit request priority wins; otherwise the template decides.
+     */
+    public NotificationPriority resolve(Notification notification) {
+        if (notification.getPriority() != null) {
+            return notification.getPriority();
+        }
+        if (notification.usesTemplate() && highPriorityTemplates.contains(notification.getTemplateName())) {
+            return NotificationPriority.HIGH;
+        }
+        return NotificationPriority.NORMAL;
+    }
+
+    public int concurrency(NotificationPriority priority) {
+        return lanes.get(priority).concurrency;
+    }
+
+    /**
+     * Queues the notification in its tenant's queue of the lane without blocking. It is processed once it
+     * is the tenant's turn and both a lane worker and a slot of its channel are free.
+     *
+     * @return completes once the notification was processed or handed to the cold queue
+     */
+    public CompletableFuture<Void> submit(NotificationPriority priority, Notification notification) {
+        Lane lane = lanes.get(priority);
+        return lane.scheduler.submit(tenantOf(notification), notification, () -> process(lane, notification));
+    }
+
+    /**
+     * Like {@link #submit}, blocking the calling (virtual) thread until the notification was processed.
+     */
+    public void execute(NotificationPriority priority, Notification notification) {
+        try {
+            submit(priority, notification).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void process(Lane lane, Notification notification) {
+        long start = System.nanoTime();
+        try {
+            if (notification.getCreatedAt() > 0) {
+                lane.queueWait.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - notification.getCreatedAt())));
+            }
+            // One retry budget for every @Retry layer below, bound outside the processor's own interceptors
+            retryBudgets.runWithBudget(() -> processor.processNotification(notification));
+        } finally {
+            lane.processing.record(Duration.ofNanos(System.nanoTime() - start));
+            if (notification.getCreatedAt() > 0) {
+                lane.endToEnd.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - notification.getCreatedAt())));
+            }
+        }
+    }
+
+    private void reject(Notification notification, NotificationException e) {
+        if (!processor.isShuttingDown()) {
+            // Channel saturated for too long: same path as a failed send, into the cold queue
+            processor.fallbackToRedis(notification, e);
+        }
+    }
+
+    private String tenantOf(Notification notification) {
+        return notification.getTenant() != null ? notification.getTenant() : tenantService.getDefaultTenant();
+    }
+
+    private static final class Lane {
+        final int concurrency;
+        final LaneScheduler scheduler;
+        final Timer queueWait;
+        final Timer processing;
+        final Timer endToEnd;
+
+        Lane(NotificationPriority priority, int concurrency, LaneScheduler scheduler, MeterRegistry registry) {
+            String tag = priority.name().toLowerCase();
+            this.concurrency = concurrency;
+            this.scheduler = scheduler;
+            Gauge.builder("notification.lane.waiting", scheduler, LaneScheduler::getQueued)
+                    .description("Notifications waiting for a worker in the lane, across all tenants")
+                    .tag("lane", tag)
+                    .register(registry);
+            this.queueWait = Timer.builder("notification.lane.queue.wait")
+                    .description("Time from admission until a worker picks the notification up")
+                    .tag("lane", tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+            this.processing = Timer.builder("notification.lane.processing")
+                    .description("Time spent rendering and sending, including in-memory retries")
+                    .tag("lane", tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+            this.endToEnd = Timer.builder("notification.lane.latency")
+                    .description("Time from admission until processing finished")
+                    .tag("lane", tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+        }
+    }
+}
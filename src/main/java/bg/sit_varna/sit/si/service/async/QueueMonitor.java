@@ -0,0 +1,178 @@
+package bg.sit_varna.sit.si.service.async;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.QueueTransport;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.service.redis.NotificationStreamService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks how much work is waiting in the notification queue.
+ *
+ * <p>For the in-memory transport a notification counts from the moment it is emitted until it is
+ * sent or handed to the Redis retry queue, so in-flight retries are included. For the Redis Streams
+ * transport the depth is the stream length, since acknowledged entries are deleted.</p>
+ *
+ * <p>Room reserved by a batch that is being admitted counts towards the depth as well, so the batch
+ * cannot overflow the in-memory buffer halfway through.</p>
+ */
+@ApplicationScoped
+public class QueueMonitor {
+
+    private static final Logger LOG = Logger.getLogger(QueueMonitor.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Map<String, Notification> pending = new ConcurrentHashMap<>();
+    private final Map<String, Owner> owners = new ConcurrentHashMap<>();
+    private final AtomicInteger reserved = new AtomicInteger();
+    private volatile boolean draining;
+    private final QueueConfig queueConfig;
+    private final NotificationStreamService streamService;
+
+    @Inject
+    public QueueMonitor(QueueConfig queueConfig, NotificationStreamService streamService, MeterRegistry registry) {
+        this.queueConfig = queueConfig;
+        this.streamService = streamService;
+
+        Gauge.builder("notification.queue.depth", this, QueueMonitor::depth)
+                .description("Notifications waiting in the queue or being processed")
+                .tag("transport", queueConfig.transport().name().toLowerCase())
+                .register(registry);
+    }
+
+    public void track(Notification notification) {
+        pending.put(notification.getId(), notification);
+    }
+
+    public boolean isTracked(String notificationId) {
+        return pending.containsKey(notificationId);
+    }
+
+    /**
+     * Ids of the notifications this pod currently holds in the in-memory queue or is processing.
+     */
+    public List<String> trackedIds() {
+        return List.copyOf(pending.keySet());
+    }
+
+    /**
+     * Marks a tracked notification as picked up by a worker.
+     *
+     * @return {@code false} when the shutdown hand-off already claimed it; the worker must leave it alone
+     */
+    public boolean start(String notificationId) {
+        if (!pending.containsKey(notificationId)) {
+            return true;
+        }
+        return owners.putIfAbsent(notificationId, Owner.WORKER) != Owner.HAND_OFF;
+    }
+
+    public void complete(String notificationId) {
+        pending.remove(notificationId);
+        owners.remove(notificationId);
+    }
+
+    /**
+     * Reserves room for {@code count} notifications before anything about them is persisted. Give each
+     * one back with {@link #release} right before it is published, or when it is not published at all.
+     *
+     * @return {@code false} when the in-memory buffer cannot take them all; the Redis stream always can
+     */
+    public boolean tryReserve(int count) {
+        if (count == 0 || queueConfig.transport() == QueueTransport.REDIS_STREAMS) {
+            return true;
+        }
+        while (true) {
+            int current = reserved.get();
+            if (pending.size() + current + count > queueConfig.capacity()) {
+                return false;
+            }
+            if (reserved.compareAndSet(current, current + count)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(int count) {
+        if (count > 0 && queueConfig.transport() != QueueTransport.REDIS_STREAMS) {
+            reserved.addAndGet(-count);
+        }
+    }
+
+    /**
+     * Claims every notification in the in-memory queue that no worker has started yet, so that
+     * {@link #start} refuses them from now on. The caller hands them off and then completes them.
+     */
+    public List<Notification> claimNotStarted() {
+        return pending.values().stream()
+                .filter(notification -> owners.putIfAbsent(notification.getId(), Owner.HAND_OFF) == null)
+                .toList();
+    }
+
+    public int inFlight() {
+        return (int) owners.values().stream().filter(owner -> owner == Owner.WORKER).count();
+    }
+
+    /**
+     * Stops admission of new work; used while the pod shuts down.
+     */
+    public void startDraining() {
+        this.draining = true;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public int depth() {
+        if (queueConfig.transport() == QueueTransport.REDIS_STREAMS) {
+            try {
+                return (int) streamService.length();
+            } catch (Exception e) {
+                LOG.warnf(e, "Failed to read stream length");
+                return 0;
+            }
+        }
+        return pending.size() + reserved.get();
+    }
+
+    public boolean isAboveHighWaterMark() {
+        return depth() >= queueConfig.highWaterMark();
+    }
+
+    /**
+     * Blocks the caller while the queue is above the high-water mark.
+     *
+     * @return {@code false} if the queue did not drain within {@code maxWait}
+     */
+    public boolean awaitCapacity(Duration maxWait) {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (isAboveHighWaterMark()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum Owner {
+        WORKER,
+        HAND_OFF
+    }
+}
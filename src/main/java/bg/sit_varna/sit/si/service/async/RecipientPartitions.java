@@ -0,0 +1,68 @@
+package bg.sit_varna.sit.si.service.async;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serial executors keyed by recipient, used when {@code queue.ordering.enabled=true}.
+ *
+ * <p>Each recipient hashes to one of {@code queue.ordering.partitions} single-threaded virtual-thread
+ * workers. Work for one recipient therefore runs one at a time in submission order, while different
+ * recipients spread over the partitions and run in parallel. Retries of a notification also block
+ * its partition, so a later message can never overtake an earlier one that is still being retried.</p>
+ */
+@ApplicationScoped
+public class RecipientPartitions {
+
+    private final List<ThreadPoolExecutor> partitions;
+
+    @Inject
+    public RecipientPartitions(QueueConfig queueConfig, MeterRegistry registry) {
+        int count = queueConfig.ordering().enabled() ? queueConfig.ordering().partitions() : 0;
+        this.partitions = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            partitions.add(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    Thread.ofVirtual().name("recipient-partition-" + i).factory()));
+        }
+
+        Gauge.builder("notification.partition.backlog.max", this, RecipientPartitions::maxBacklog)
+                .description("Largest number of notifications waiting in a single recipient partition")
+                .register(registry);
+    }
+
+    /**
+     * Queues the task behind earlier work for the same recipient.
+     */
+    public CompletableFuture<Void> submit(String recipient, Runnable task) {
+        return CompletableFuture.runAsync(task, partitionFor(recipient));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        partitions.forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    private ThreadPoolExecutor partitionFor(String recipient) {
+        return partitions.get(Math.floorMod(recipient.hashCode(), partitions.size()));
+    }
+
+    private double maxBacklog() {
+        int max = 0;
+        for (ThreadPoolExecutor partition : partitions) {
+            max = Math.max(max, partition.getQueue().size());
+        }
+        return max;
+    }
+}
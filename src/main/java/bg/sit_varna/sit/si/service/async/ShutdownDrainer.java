@@ -0,0 +1,100 @@
+package bg.sit_varna.sit.si.service.async;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.NotificationStatus;
+import bg.sit_varna.sit.si.constant.QueueTransport;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.service.core.NotificationStateService;
+import bg.sit_varna.sit.si.service.redis.RedisRetryService;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+/**
+ * Drains the in-memory queue when the pod stops.
+ *
+ * <ol>
+ * <li>New ingest is refused with 503 so the load balancer sends clients elsewhere.</li>
+ * <li>Workers keep going until the queue is empty or {@code queue.drain-timeout} passes.</li>
+ * <li>Anything not yet started is handed off: back to QUEUED for the outbox relay in outbox mode,
+ *     otherwise into the Redis retry queue with no delay, where any replica picks it up.</li>
+ * </ol>
+ *
+ * <p>The Redis Streams transport needs no hand-off: unacknowledged entries are reclaimed by other consumers.</p>
+ */
+@ApplicationScoped
+public class ShutdownDrainer {
+
+    private static final Logger LOG = Logger.getLogger(ShutdownDrainer.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    @Inject QueueConfig queueConfig;
+    @Inject QueueMonitor queueMonitor;
+    @Inject NotificationProcessor processor;
+    @Inject RedisRetryService redisRetryService;
+    @Inject NotificationStateService stateService;
+
+    void onShutdown(@Observes @Priority(1) ShutdownEvent ev) {
+        queueMonitor.startDraining();
+
+        if (queueConfig.transport() != QueueTransport.MEMORY) {
+            return;
+        }
+
+        int initialDepth = queueMonitor.depth();
+        if (initialDepth == 0) {
+            LOG.info("Shutdown drain: queue empty, nothing to drain");
+            processor.shutdown();
+            return;
+        }
+
+        LOG.infof("Shutdown drain: waiting up to %s for %d queued notifications",
+                queueConfig.drainTimeout(), initialDepth);
+
+        long deadline = System.nanoTime() + queueConfig.drainTimeout().toNanos();
+        while (queueMonitor.depth() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // From here on workers skip whatever they receive without completing it, so it is still claimed below.
+        // A worker that got past the flag just before either starts the notification first or is refused by the claim.
+        processor.shutdown();
+
+        List<Notification> leftovers = queueMonitor.claimNotStarted();
+        int handedOff = handOff(leftovers);
+        int inFlight = queueMonitor.inFlight();
+        int drained = Math.max(0, initialDepth - leftovers.size() - inFlight);
+
+        LOG.infof("Shutdown drain finished: %d drained, %d handed off, %d failed to hand off, %d still in flight",
+                drained, handedOff, leftovers.size() - handedOff, inFlight);
+    }
+
+    private int handOff(List<Notification> leftovers) {
+        int handedOff = 0;
+        for (Notification notification : leftovers) {
+            try {
+                if (queueConfig.outbox().enabled()) {
+                    stateService.updateStatus(notification.getId(), NotificationStatus.QUEUED,
+                            "Handed off during shutdown", null);
+                } else {
+                    redisRetryService.scheduleRetry(notification, 0);
+                }
+                queueMonitor.complete(notification.getId());
+                handedOff++;
+            } catch (Exception e) {
+                LOG.errorf(e, "Failed to hand off notification %s during shutdown", notification.getId());
+            }
+        }
+        return handedOff;
+    }
+}
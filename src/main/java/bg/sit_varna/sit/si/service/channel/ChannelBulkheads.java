@@ -0,0 +1,155 @@
+package bg.sit_varna.sit.si.service.channel;
+
+import bg.sit_varna.sit.si.config.channel.BulkheadConfig;
+import bg.sit_varna.sit.si.constant.ErrorCategory;
+import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.service.core.MessageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Slot bulkhead per delivery channel. A slow or failing provider can only hold its own
+ * channel's slots, so a Telegram outage waiting on timeouts does not take capacity from email.
+ *
+ * <p>Slots are never waited for here. {@link bg.sit_varna.sit.si.service.async.LaneScheduler} only
+ * starts a notification once its channel has a free slot, so a notification waiting for a saturated
+ * channel holds no worker and the other channels keep flowing. At most {@code queue-size} notifications
+ * may be waiting for a channel at their turn, each for at most {@code max-wait}; beyond that they are
+ * rejected with {@link NotificationErrorCode#CHANNEL_SATURATED} and go through the processor's normal
+ * retry path.</p>
+ */
+@ApplicationScoped
+public class ChannelBulkheads {
+
+    private static final Logger LOG = Logger.getLogger(ChannelBulkheads.class);
+
+    private final BulkheadConfig config;
+    private final MessageService messageService;
+    private final Map<NotificationChannel, Bulkhead> bulkheads = new EnumMap<>(NotificationChannel.class);
+    private final List<Runnable> releaseListeners = new CopyOnWriteArrayList<>();
+
+    @Inject
+    public ChannelBulkheads(BulkheadConfig config, MessageService messageService, MeterRegistry registry) {
+        this.config = config;
+        this.messageService = messageService;
+
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            bulkheads.put(channel, new Bulkhead(channel, limitsFor(channel), registry));
+        }
+    }
+
+    /**
+     * Takes a slot of the channel if one is free; every successful call must be paired with {@link #release}.
+     */
+    public boolean tryAcquire(NotificationChannel channel) {
+        return !config.enabled() || bulkheads.get(channel).permits.tryAcquire();
+    }
+
+    /**
+     * Frees a slot and tells every listener, so notifications waiting for the channel in any lane can start.
+     */
+    public void release(NotificationChannel channel) {
+        if (!config.enabled()) {
+            return;
+        }
+        bulkheads.get(channel).permits.release();
+        releaseListeners.forEach(Runnable::run);
+    }
+
+    public void onRelease(Runnable listener) {
+        releaseListeners.add(listener);
+    }
+
+    /**
+     * Records a notification whose turn came while the channel was saturated.
+     *
+     * @return {@code false} when {@code queue-size} notifications are already waiting; the caller must reject it
+     */
+    public boolean startWaiting(NotificationChannel channel) {
+        Bulkhead bulkhead = bulkheads.get(channel);
+        if (bulkhead.waiting.incrementAndGet() > bulkhead.limits.queueSize()) {
+            bulkhead.waiting.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void stopWaiting(NotificationChannel channel) {
+        bulkheads.get(channel).waiting.decrementAndGet();
+    }
+
+    public Duration maxWait(NotificationChannel channel) {
+        return bulkheads.get(channel).limits.maxWait();
+    }
+
+    public NotificationException reject(NotificationChannel channel) {
+        return bulkheads.get(channel).reject();
+    }
+
+    private BulkheadConfig.ChannelLimits limitsFor(NotificationChannel channel) {
+        return switch (channel) {
+            case EMAIL -> config.email();
+            case SMS -> config.sms();
+            case TELEGRAM -> config.telegram();
+        };
+    }
+
+    private final class Bulkhead {
+        private final NotificationChannel channel;
+        private final BulkheadConfig.ChannelLimits limits;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Counter rejected;
+
+        Bulkhead(NotificationChannel channel, BulkheadConfig.ChannelLimits limits, MeterRegistry registry) {
+            this.channel = channel;
+            this.limits = limits;
+            this.permits = new Semaphore(limits.maxConcurrent());
+
+            String tag = channel.name().toLowerCase();
+            Gauge.builder("notification.bulkhead.active", this, b -> b.limits.maxConcurrent() - b.permits.availablePermits())
+                    .description("Sends currently in flight for the channel")
+                    .tag("channel", tag)
+                    .register(registry);
+            Gauge.builder("notification.bulkhead.waiting", waiting, AtomicInteger::get)
+                    .description("Sends whose turn came while the channel had no free slot")
+                    .tag("channel", tag)
+                    .register(registry);
+            Gauge.builder("notification.bulkhead.saturation", this,
+                            b -> (double) (b.limits.maxConcurrent() - b.permits.availablePermits()) / b.limits.maxConcurrent())
+                    .description("Fraction of the channel's concurrency in use (1.0 = saturated)")
+                    .tag("channel", tag)
+                    .register(registry);
+            this.rejected = Counter.builder("notification.bulkhead.rejected")
+                    .description("Sends rejected because the channel bulkhead was full")
+                    .tag("channel", tag)
+                    .register(registry);
+        }
+
+        private NotificationException reject() {
+            rejected.increment();
+            int active = limits.maxConcurrent() - permits.availablePermits();
+            LOG.warnf("%s bulkhead full: %d in flight, %d waiting", channel, active, waiting.get());
+            return new NotificationException(
+                    NotificationErrorCode.CHANNEL_SATURATED,
+                    ErrorCategory.NOTIFICATION_SENDING,
+                    messageService.getTitle(NotificationErrorCode.CHANNEL_SATURATED),
+                    messageService.getMessage(NotificationErrorCode.CHANNEL_SATURATED, channel, active, waiting.get())
+            );
+        }
+    }
+}
@@ -3,7 +3,10 @@ package bg.sit_varna.sit.si.service.channel.email;
 import bg.sit_varna.sit.si.config.channel.SendGridConfig;
 import bg.sit_varna.sit.si.constant.NotificationErrorCode;
 import bg.sit_varna.sit.si.exception.exceptions.EmailSendException;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.service.channel.limit.ProviderConcurrencyLimiters;
 import bg.sit_varna.sit.si.service.core.MessageService;
+import bg.sit_varna.sit.si.service.retry.RetryPolicyEngine;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
 import com.sendgrid.Response;
@@ -11,6 +14,8 @@ import com.sendgrid.SendGrid;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
+import io.smallrye.faulttolerance.api.CustomBackoff;
+import io.smallrye.faulttolerance.api.RetryWhen;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.faulttolerance.Retry;
@@ -32,6 +37,8 @@ public class SendGridEmailSender implements EmailSender {
     SendGridConfig sendGridConfig;
     @Inject
     MessageService messageService;
+    @Inject
+    ProviderConcurrencyLimiters providerLimiters;
 
     public boolean isConfigured() {
         return sendGridConfig.isConfigured();
@@ -45,6 +52,8 @@ public class SendGridEmailSender implements EmailSender {
     @Override
     @Timeout(value = 10, unit = ChronoUnit.SECONDS)
     @Retry(maxRetries = 3, delay = 1000)
+    @RetryWhen(exception = RetryPolicyEngine.Immediate.class)
+    @CustomBackoff(RetryPolicyEngine.RetryAfterBackoff.class)
     public void send(String to, String subject,
                      String content,
                      List<String> ccList,
@@ -62,10 +71,11 @@ public class SendGridEmailSender implements EmailSender {
             request.setEndpoint("mail/send");
             request.setBody(mail.build());
 
-            Response response = sendGrid.api(request);
+            Response response = providerLimiters.execute(getProviderName(),
+                    () -> sendGrid.api(request), Response::getStatusCode);
             handleResponse(response, to, locale);
 
-        } catch (EmailSendException e) {
+        } catch (NotificationException e) {
             throw e;
         } catch (IOException e) {
             LOG.errorf(e, "IO error sending email via SendGrid to: %s", to);
@@ -142,9 +152,9 @@ public class SendGridEmailSender implements EmailSender {
             );
         } else if (statusCode == 429) {
             throw new EmailSendException(
-                    NotificationErrorCode.EMAIL_SEND_FAILED,
-                    messageService.getTitle(NotificationErrorCode.EMAIL_SEND_FAILED, locale),
-                    "Rate limit exceeded: " + errorMessage,
+                    NotificationErrorCode.EMAIL_RATE_LIMITED,
+                    messageService.getTitle(NotificationErrorCode.EMAIL_RATE_LIMITED, locale),
+                    messageService.getMessage(NotificationErrorCode.EMAIL_RATE_LIMITED, locale, recipient, errorMessage),
                     recipient
             );
         } else {
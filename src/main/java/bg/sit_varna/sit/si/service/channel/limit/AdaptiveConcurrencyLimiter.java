@@ -0,0 +1,150 @@
+package bg.sit_varna.sit.si.service.channel.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limiter for calls to one provider.
+ *
+ * <p>Each completed call reports its outcome and round-trip time. While latency stays within
+ * {@code latencyTolerance} times the long-term average, the limit grows additively by about one per
+ * limit's worth of successful calls. A call that is throttled (429), times out, or is much slower than the
+ * average cuts the limit multiplicatively by {@code backoffRatio}. The effect is that the number of
+ * concurrent requests tracks what the provider can actually absorb instead of a fixed guess.</p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * Result of a call as seen by the limiter.
+     */
+    public enum Outcome {
+        /** Provider handled the call; its latency is used as a signal. */
+        SUCCESS,
+        /** Provider signalled overload (429, timeout, 5xx); the limit is cut. */
+        OVERLOAD,
+        /** Call failed for reasons unrelated to load (e.g. invalid recipient); limit unchanged. */
+        IGNORE
+    }
+
+    private static final double RTT_SMOOTHING = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double averageRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Waits until fewer than {@link #getLimit()} calls are in flight.
+     *
+     * @return {@code false} if no slot freed up within the timeout
+     */
+    public boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot taken by {@link #acquire} and adjusts the limit.
+     */
+    public void release(Outcome outcome, long rttNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+
+            switch (outcome) {
+                case SUCCESS -> onSuccess(rttNanos);
+                case OVERLOAD -> decrease();
+                case IGNORE -> { }
+            }
+
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess(long rttNanos) {
+        if (averageRttNanos == 0) {
+            averageRttNanos = rttNanos;
+            return;
+        }
+
+        if (rttNanos > averageRttNanos * latencyTolerance) {
+            // Latency spike: queueing on the provider side, back off without polluting the average
+            decrease();
+            return;
+        }
+
+        averageRttNanos += RTT_SMOOTHING * (rttNanos - averageRttNanos);
+        limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package bg.sit_varna.sit.si.service.channel.limit;
+
+import bg.sit_varna.sit.si.config.channel.ProviderPacingConfig;
+import bg.sit_varna.sit.si.service.redis.RedisScript;
+import bg.sit_varna.sit.si.service.redis.RedisScriptExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.mutiny.redis.client.Response;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces provider calls across the whole cluster so that they stay under the provider's published rates
+ * (Telegram per bot and per chat, Twilio per sending number). Each call reserves its slot in Redis with
+ * {@code pace.lua} and sleeps until the slot starts, so sends are delayed just enough instead of being
+ * rejected by the provider. A provider can also be paused as a whole when it asks us to back off.
+ * Both scripts read the time from the Redis server, so clock skew between pods does not distort the pacing.
+ *
+ * <p>Call it before {@link ProviderConcurrencyLimiters#execute}, so that waiting for a slot does not hold
+ * a concurrency permit. Redis errors let the call through (fail open).</p>
+ */
+@ApplicationScoped
+public class OutboundPacer {
+
+    private static final Logger LOG = Logger.getLogger(OutboundPacer.class);
+    private static final RedisScript PACE = RedisScript.load("pace");
+    private static final RedisScript PAUSE = RedisScript.load("pace_pause");
+    private static final String TELEGRAM = "telegram";
+    private static final String TWILIO = "twilio";
+
+    private final ProviderPacingConfig config;
+    private final RedisScriptExecutor scriptExecutor;
+    private final MeterRegistry registry;
+
+    @Inject
+    public OutboundPacer(ProviderPacingConfig config,
+                         RedisScriptExecutor scriptExecutor,
+                         MeterRegistry registry) {
+        this.config = config;
+        this.scriptExecutor = scriptExecutor;
+        this.registry = registry;
+    }
+
+    /**
+     * Waits for the bot-wide slot and, when {@code chatId} is given, the chat's slot.
+     *
+     * @return empty once the call may go out; otherwise how long until the bot has room, when that is
+     * longer than {@code provider-pacing.max-wait}
+     */
+    public Optional<Duration> awaitTelegram(String chatId) {
+        List<Lane> lanes = new ArrayList<>(2);
+        lanes.add(new Lane("pace:" + TELEGRAM, config.telegram().botPerSecond()));
+        if (chatId != null) {
+            lanes.add(new Lane("pace:" + TELEGRAM + ":chat:" + chatId, config.telegram().chatPerSecond()));
+        }
+        return await(TELEGRAM, lanes);
+    }
+
+    /**
+     * Waits for the sending number's slot.
+     *
+     * @see #awaitTelegram(String)
+     */
+    public Optional<Duration> awaitTwilio(String fromNumber) {
+        return await(TWILIO, List.of(new Lane("pace:" + TWILIO + ":" + fromNumber, config.twilio().numberPerSecond())));
+    }
+
+    /**
+     * Holds every call to {@code provider} for {@code duration}, e.g. after a 429 with {@code retry_after}.
+     */
+    public void pause(String provider, Duration duration) {
+        if (!config.enabled() || duration.isZero() || duration.isNegative()) {
+            return;
+        }
+
+        try {
+            scriptExecutor.execute(PAUSE, List.of(pauseKey(provider)), List.of(String.valueOf(duration.toMillis())));
+            LOG.warnf("Pausing all %s calls for %s", provider, duration);
+        } catch (Exception e) {
+            LOG.errorf(e, "Error pausing %s calls", provider);
+        }
+    }
+
+    private Optional<Duration> await(String provider, List<Lane> lanes) {
+        if (!config.enabled()) {
+            return Optional.empty();
+        }
+
+        List<String> keys = new ArrayList<>(lanes.size() + 1);
+        List<String> args = new ArrayList<>(lanes.size() + 1);
+        keys.add(pauseKey(provider));
+        args.add(String.valueOf(config.maxWait().toMillis()));
+        for (Lane lane : lanes) {
+            keys.add(lane.key());
+            args.add(String.valueOf(1000.0 / lane.perSecond()));
+        }
+
+        long waitMillis;
+        try {
+            Response response = scriptExecutor.execute(PACE, keys, args);
+            waitMillis = response.get(1).toLong();
+            if (response.get(0).toInteger() == 0) {
+                deferred(provider).increment();
+                return Optional.of(Duration.ofMillis(waitMillis));
+            }
+        } catch (Exception e) {
+            LOG.errorf(e, "Error pacing %s call, sending without delay (Fail Open)", provider);
+            return Optional.empty();
+        }
+
+        waitTimer(provider).record(waitMillis, TimeUnit.MILLISECONDS);
+        if (waitMillis > 0) {
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // The slot stays reserved but unused, which only makes the lane slower for a moment
+                return Optional.of(Duration.ofMillis(waitMillis));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String pauseKey(String provider) {
+        return "pace:" + provider + ":paused";
+    }
+
+    private Timer waitTimer(String provider) {
+        return Timer.builder("notification.provider.pacing.wait")
+                .description("Time a provider call waited for its slot under the provider's published rate")
+                .tag("provider", provider)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    private Counter deferred(String provider) {
+        return Counter.builder("notification.provider.pacing.deferred")
+                .description("Provider calls sent to the cold queue because their slot was too far away")
+                .tag("provider", provider)
+                .register(registry);
+    }
+
+    private record Lane(String key, double perSecond) {
+    }
+}
@@ -0,0 +1,119 @@
+package bg.sit_varna.sit.si.service.channel.limit;
+
+import bg.sit_varna.sit.si.config.channel.ProviderLimitConfig;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.exception.exceptions.ProviderSaturatedException;
+import bg.sit_varna.sit.si.service.core.MessageService;
+import bg.sit_varna.sit.si.service.retry.RetryBudget;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * One {@link AdaptiveConcurrencyLimiter} per provider, wrapped around the raw HTTP call so that
+ * retries and circuit breakers above it see the limiter as part of the call. Every call is also reported
+ * to the delivery's {@link RetryBudget}, which is how first attempts earn the provider retry tokens.
+ */
+@ApplicationScoped
+public class ProviderConcurrencyLimiters {
+
+    private final ProviderLimitConfig config;
+    private final MessageService messageService;
+    private final MeterRegistry registry;
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    @Inject
+    public ProviderConcurrencyLimiters(ProviderLimitConfig config, MessageService messageService, MeterRegistry registry) {
+        this.config = config;
+        this.messageService = messageService;
+        this.registry = registry;
+    }
+
+    /**
+     * Runs a provider call inside the provider's adaptive limit.
+     *
+     * @param statusOf extracts the HTTP status from the response; 429 and 5xx count as overload
+     */
+    public <T> T execute(String provider, Callable<T> call, ToIntFunction<T> statusOf) throws Exception {
+        RetryBudget.recordProviderCall(provider);
+
+        if (!config.enabled()) {
+            return call.call();
+        }
+
+        Limiter limiter = limiters.computeIfAbsent(provider, this::createLimiter);
+
+        long waitStart = System.nanoTime();
+        if (!limiter.delegate.acquire(config.maxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+            limiter.queueWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            throw saturated(provider, limiter.delegate);
+        }
+        long callStart = System.nanoTime();
+        limiter.queueWait.record(callStart - waitStart, TimeUnit.NANOSECONDS);
+
+        AdaptiveConcurrencyLimiter.Outcome outcome = AdaptiveConcurrencyLimiter.Outcome.OVERLOAD;
+        try {
+            T result = call.call();
+            outcome = classify(statusOf.applyAsInt(result));
+            return result;
+        } catch (NotificationException e) {
+            outcome = AdaptiveConcurrencyLimiter.Outcome.IGNORE;
+            throw e;
+        } finally {
+            // Anything else (I/O error, timeout, interruption) is treated as overload
+            limiter.delegate.release(outcome, System.nanoTime() - callStart);
+        }
+    }
+
+    private static AdaptiveConcurrencyLimiter.Outcome classify(int status) {
+        if (status == 429 || status >= 500) {
+            return AdaptiveConcurrencyLimiter.Outcome.OVERLOAD;
+        }
+        if (status >= 400) {
+            return AdaptiveConcurrencyLimiter.Outcome.IGNORE;
+        }
+        return AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+    }
+
+    private Limiter createLimiter(String provider) {
+        AdaptiveConcurrencyLimiter delegate = new AdaptiveConcurrencyLimiter(
+                config.initialLimit(), config.minLimit(), config.maxLimit(),
+                config.backoffRatio(), config.latencyTolerance());
+
+        Gauge.builder("notification.provider.limit", delegate, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for the provider")
+                .tag("provider", provider)
+                .register(registry);
+        Gauge.builder("notification.provider.inflight", delegate, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Provider calls currently in flight")
+                .tag("provider", provider)
+                .register(registry);
+        Timer queueWait = Timer.builder("notification.provider.limit.wait")
+                .description("Time spent waiting for a slot under the provider limit")
+                .tag("provider", provider)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        return new Limiter(delegate, queueWait);
+    }
+
+    private ProviderSaturatedException saturated(String provider, AdaptiveConcurrencyLimiter limiter) {
+        return new ProviderSaturatedException(
+                messageService.getTitle(NotificationErrorCode.CHANNEL_SATURATED),
+                messageService.getMessage(NotificationErrorCode.CHANNEL_SATURATED,
+                        provider, limiter.getInFlight(), limiter.getWaiting())
+        );
+    }
+
+    private record Limiter(AdaptiveConcurrencyLimiter delegate, Timer queueWait) {
+    }
+}
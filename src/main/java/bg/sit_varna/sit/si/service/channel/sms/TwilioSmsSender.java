@@ -2,8 +2,14 @@ package bg.sit_varna.sit.si.service.channel.sms;
 
 import bg.sit_varna.sit.si.config.channel.TwilioConfig;
 import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
 import bg.sit_varna.sit.si.exception.exceptions.SmsSendException;
+import bg.sit_varna.sit.si.service.channel.limit.OutboundPacer;
+import bg.sit_varna.sit.si.service.channel.limit.ProviderConcurrencyLimiters;
 import bg.sit_varna.sit.si.service.core.MessageService;
+import bg.sit_varna.sit.si.service.retry.RetryPolicyEngine;
+import io.smallrye.faulttolerance.api.CustomBackoff;
+import io.smallrye.faulttolerance.api.RetryWhen;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.client.Client;
@@ -16,9 +22,11 @@ import org.eclipse.microprofile.faulttolerance.Retry;
 import org.eclipse.microprofile.faulttolerance.Timeout;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
 import java.util.Locale;
+import java.util.Optional;
 
 @ApplicationScoped
 public final class TwilioSmsSender implements SmsSender {
@@ -32,6 +40,12 @@ public final class TwilioSmsSender implements SmsSender {
     @Inject
     MessageService messageService;
 
+    @Inject
+    ProviderConcurrencyLimiters providerLimiters;
+
+    @Inject
+    OutboundPacer outboundPacer;
+
     public boolean isConfigured() {
         return twilioConfig.isConfigured();
     }
@@ -39,9 +53,13 @@ public final class TwilioSmsSender implements SmsSender {
     @Override
     @Timeout(value = 10, unit = ChronoUnit.SECONDS)
     @Retry(maxRetries = 3, delay = 1000)
+    @RetryWhen(exception = RetryPolicyEngine.Immediate.class)
+    @CustomBackoff(RetryPolicyEngine.RetryAfterBackoff.class)
     public void send(String recipient, String message, Locale locale) {
         LOG.infof("Sending SMS via Twilio to: %s", recipient);
 
+        awaitSlot(recipient, locale);
+
         try (Client client = ClientBuilder.newClient()) {
             String url = String.format(TWILIO_API_URL_TEMPLATE, twilioConfig.accountSid());
             String authorization = buildAuthorizationHeader();
@@ -51,14 +69,16 @@ public final class TwilioSmsSender implements SmsSender {
             form.param("To", recipient);
             form.param("Body", message);
 
-            Response response = client.target(url)
-                    .request(MediaType.APPLICATION_JSON)
-                    .header("Authorization", authorization)
-                    .post(Entity.form(form));
+            Response response = providerLimiters.execute(getProviderName(),
+                    () -> client.target(url)
+                            .request(MediaType.APPLICATION_JSON)
+                            .header("Authorization", authorization)
+                            .post(Entity.form(form)),
+                    Response::getStatus);
 
             handleResponse(response, recipient, locale);
 
-        } catch (SmsSendException e) {
+        } catch (NotificationException e) {
             throw e;
         } catch (Exception e) {
             LOG.errorf(e, "Unexpected error sending SMS via Twilio to: %s", recipient);
@@ -81,6 +101,21 @@ public final class TwilioSmsSender implements SmsSender {
         return SmsProvider.TWILIO.getProvider();
     }
 
+    private void awaitSlot(String recipient, Locale locale) {
+        Optional<Duration> wait = outboundPacer.awaitTwilio(twilioConfig.phoneNumber());
+        if (wait.isPresent()) {
+            throw new SmsSendException(
+                    NotificationErrorCode.SMS_RATE_LIMITED,
+                    messageService.getTitle(NotificationErrorCode.SMS_RATE_LIMITED, locale),
+                    messageService.getMessage(NotificationErrorCode.SMS_RATE_LIMITED, locale, "Twilio",
+                            "next send slot in " + wait.get().toMillis() + " ms"),
+                    recipient,
+                    "Twilio",
+                    wait.get()
+            );
+        }
+    }
+
     private String buildAuthorizationHeader() {
         String credentials = twilioConfig.accountSid() + ":" + twilioConfig.authToken();
         String encodedCredentials = Base64.getEncoder().encodeToString(credentials.getBytes());
@@ -93,6 +128,17 @@ public final class TwilioSmsSender implements SmsSender {
         if (statusCode == 201) {
             LOG.infof("SMS sent successfully via Twilio to: %s", recipient);
             LOG.debugf("Twilio response: %s", response.readEntity(String.class));
+        } else if (statusCode == 429) {
+            String responseBody = response.readEntity(String.class);
+            LOG.warnf("Twilio rate limit hit - Body: %s", responseBody);
+
+            throw new SmsSendException(
+                    NotificationErrorCode.SMS_RATE_LIMITED,
+                    messageService.getTitle(NotificationErrorCode.SMS_RATE_LIMITED, locale),
+                    messageService.getMessage(NotificationErrorCode.SMS_RATE_LIMITED, locale, "Twilio", responseBody),
+                    recipient,
+                    "Twilio"
+            );
         } else {
             String responseBody = response.readEntity(String.class);
             LOG.errorf("Twilio API error - Status: %d, Body: %s", statusCode, responseBody);
@@ -2,10 +2,18 @@ package bg.sit_varna.sit.si.service.channel.telegram;
 
 import bg.sit_varna.sit.si.config.channel.TelegramConfig;
 import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.exception.exceptions.ProviderSaturatedException;
+import bg.sit_varna.sit.si.exception.exceptions.TelegramPacingException;
 import bg.sit_varna.sit.si.exception.exceptions.TelegramSendException;
+import bg.sit_varna.sit.si.service.channel.limit.OutboundPacer;
+import bg.sit_varna.sit.si.service.channel.limit.ProviderConcurrencyLimiters;
 import bg.sit_varna.sit.si.service.core.MessageService;
+import bg.sit_varna.sit.si.service.retry.RetryPolicyEngine;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.faulttolerance.api.CustomBackoff;
+import io.smallrye.faulttolerance.api.RetryWhen;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.client.Client;
@@ -18,10 +26,13 @@ import org.eclipse.microprofile.faulttolerance.Retry;
 import org.eclipse.microprofile.faulttolerance.Timeout;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @ApplicationScoped
 public class TelegramApiSender {
@@ -29,6 +40,9 @@ public class TelegramApiSender {
     private static final Logger LOG = Logger.getLogger(TelegramApiSender.class);
     private static final String TELEGRAM_API_BASE = "https://api.telegram.org/bot";
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String PROVIDER_NAME = "telegram";
+    // Calls that count towards Telegram's flood limits; chat actions and bot info are not paced
+    private static final Set<String> PACED_METHODS = Set.of("sendMessage", "sendPhoto", "sendDocument", "editMessageText");
 
     @Inject
     TelegramConfig telegramConfig;
@@ -36,13 +50,22 @@ public class TelegramApiSender {
     @Inject
     MessageService messageService;
 
+    @Inject
+    ProviderConcurrencyLimiters providerLimiters;
+
+    @Inject
+    OutboundPacer outboundPacer;
+
     public boolean isConfigured() {
         return telegramConfig.isConfigured();
     }
 
     @Retry(maxRetries = 3, delay = 2000, delayUnit = ChronoUnit.MILLIS)
+    @RetryWhen(exception = RetryPolicyEngine.Immediate.class)
+    @CustomBackoff(RetryPolicyEngine.RetryAfterBackoff.class)
     @Timeout(value = 10, unit = ChronoUnit.SECONDS)
-    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000)
+    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000,
+            skipOn = {TelegramPacingException.class, ProviderSaturatedException.class})
     public Integer sendMessage(String chatId, String message, Map<String, Object> options, Locale locale) {
         LOG.infof("Sending Telegram message to chat ID: %s", chatId);
         validateChatId(chatId);
@@ -56,7 +79,7 @@ public class TelegramApiSender {
             LOG.infof("Telegram message sent successfully. Chat ID: %s, Message ID: %d", chatId, messageId);
             return messageId;
 
-        } catch (TelegramSendException e) {
+        } catch (NotificationException e) {
             throw e;
         } catch (Exception e) {
             LOG.errorf(e, "Error sending Telegram message to %s", chatId);
@@ -71,8 +94,11 @@ public class TelegramApiSender {
     }
 
     @Retry(maxRetries = 3, delay = 2000, delayUnit = ChronoUnit.MILLIS)
+    @RetryWhen(exception = RetryPolicyEngine.Immediate.class)
+    @CustomBackoff(RetryPolicyEngine.RetryAfterBackoff.class)
     @Timeout(value = 10, unit = ChronoUnit.SECONDS)
-    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000)
+    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000,
+            skipOn = {TelegramPacingException.class, ProviderSaturatedException.class})
     public Integer sendPhoto(String chatId, String photo, String caption, Map<String, Object> options, Locale locale) {
         LOG.infof("Sending photo to chat ID: %s", chatId);
 
@@ -103,7 +129,7 @@ public class TelegramApiSender {
             LOG.infof("Photo sent successfully. Chat ID: %s, Message ID: %d", chatId, messageId);
             return messageId;
 
-        } catch (TelegramSendException e) {
+        } catch (NotificationException e) {
             throw e;
         } catch (Exception e) {
             LOG.errorf(e, "Error sending photo to chat ID: %s", chatId);
@@ -118,8 +144,11 @@ public class TelegramApiSender {
     }
 
     @Retry(maxRetries = 3, delay = 2000, delayUnit = ChronoUnit.MILLIS)
+    @RetryWhen(exception = RetryPolicyEngine.Immediate.class)
+    @CustomBackoff(RetryPolicyEngine.RetryAfterBackoff.class)
     @Timeout(value = 10, unit = ChronoUnit.SECONDS)
-    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000)
+    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000,
+            skipOn = {TelegramPacingException.class, ProviderSaturatedException.class})
     public Integer sendDocument(String chatId, String document, String caption, Map<String, Object> options, Locale locale) {
         LOG.infof("Sending document to chat ID: %s", chatId);
 
@@ -142,7 +171,7 @@ public class TelegramApiSender {
             LOG.infof("Document sent successfully. Chat ID: %s, Message ID: %d", chatId, messageId);
             return messageId;
 
-        } catch (TelegramSendException e) {
+        } catch (NotificationException e) {
             throw e;
         } catch (Exception e) {
             LOG.errorf(e, "Error sending document to chat ID: %s", chatId);
@@ -157,8 +186,11 @@ public class TelegramApiSender {
     }
 
     @Retry(maxRetries = 3, delay = 2000, delayUnit = ChronoUnit.MILLIS)
+    @RetryWhen(exception = RetryPolicyEngine.Immediate.class)
+    @CustomBackoff(RetryPolicyEngine.RetryAfterBackoff.class)
     @Timeout(value = 10, unit = ChronoUnit.SECONDS)
-    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000)
+    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000,
+            skipOn = {TelegramPacingException.class, ProviderSaturatedException.class})
     public boolean editMessageText(String chatId, Integer messageId, String newText, Map<String, Object> options, Locale locale) {
         LOG.infof("Editing message %d in chat %s", messageId, chatId);
 
@@ -177,7 +209,7 @@ public class TelegramApiSender {
             LOG.infof("Message edited successfully. Chat ID: %s, Message ID: %d", chatId, messageId);
             return true;
 
-        } catch (TelegramSendException e) {
+        } catch (NotificationException e) {
             throw e;
         } catch (Exception e) {
             LOG.errorf(e, "Error editing message in chat ID: %s", chatId);
@@ -192,8 +224,11 @@ public class TelegramApiSender {
     }
 
     @Retry(maxRetries = 3, delay = 2000, delayUnit = ChronoUnit.MILLIS)
+    @RetryWhen(exception = RetryPolicyEngine.Immediate.class)
+    @CustomBackoff(RetryPolicyEngine.RetryAfterBackoff.class)
     @Timeout(value = 10, unit = ChronoUnit.SECONDS)
-    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000)
+    @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5, delay = 30000,
+            skipOn = {TelegramPacingException.class, ProviderSaturatedException.class})
     public boolean deleteMessage(String chatId, Integer messageId, Locale locale) {
         LOG.infof("Deleting message %d from chat %s", messageId, chatId);
 
@@ -208,7 +243,7 @@ public class TelegramApiSender {
             LOG.infof("Message deleted successfully. Chat ID: %s, Message ID: %d", chatId, messageId);
             return true;
 
-        } catch (TelegramSendException e) {
+        } catch (NotificationException e) {
             throw e;
         } catch (Exception e) {
             LOG.errorf(e, "Error deleting message in chat ID: %s", chatId);
@@ -305,15 +340,34 @@ public class TelegramApiSender {
     private JsonNode executeApiCall(String method, Map<String, Object> requestBody) throws Exception {
         String url = TELEGRAM_API_BASE + telegramConfig.botToken() + "/" + method;
 
+        if (PACED_METHODS.contains(method)) {
+            awaitSlot(requestBody.get("chat_id").toString());
+        }
+
         try (Client client = createHttpClient()) {
-            Response response = client.target(url)
-                    .request(MediaType.APPLICATION_JSON)
-                    .post(Entity.json(requestBody != null ? requestBody : new HashMap<>()));
+            Response response = providerLimiters.execute(PROVIDER_NAME,
+                    () -> client.target(url)
+                            .request(MediaType.APPLICATION_JSON)
+                            .post(Entity.json(requestBody != null ? requestBody : new HashMap<>())),
+                    Response::getStatus);
 
             return handleApiResponse(response, method);
         }
     }
 
+    private void awaitSlot(String chatId) {
+        Optional<Duration> wait = outboundPacer.awaitTelegram(chatId);
+        if (wait.isPresent()) {
+            long seconds = Math.max(1, wait.get().toSeconds());
+            throw new TelegramPacingException(
+                    messageService.getTitle(NotificationErrorCode.TELEGRAM_RATE_LIMITED),
+                    messageService.getMessage(NotificationErrorCode.TELEGRAM_RATE_LIMITED, seconds),
+                    chatId,
+                    wait.get()
+            );
+        }
+    }
+
     private JsonNode handleApiResponse(Response response, String method) throws Exception {
         int statusCode = response.getStatus();
         String responseBody = response.readEntity(String.class);
@@ -331,11 +385,19 @@ public class TelegramApiSender {
         LOG.errorf("Telegram API error - Method: %s, Status: %d, Code: %d, Description: %s",
                 method, statusCode, errorCode, errorDescription);
 
+        // Flood control: Telegram tells us how many seconds to back off in parameters.retry_after
+        int retryAfterSeconds = jsonResponse.path("parameters").path("retry_after").asInt(0);
+        if (errorCode == 429 && retryAfterSeconds > 0) {
+            // The limit applies to the bot, so every pod holds off, not just this call's retries
+            outboundPacer.pause(PROVIDER_NAME, Duration.ofSeconds(retryAfterSeconds));
+        }
+
         throw new TelegramSendException(
                 determineErrorCode(errorCode),
                 "Telegram API Error",
                 String.format("API call failed: %s (error code: %d)", errorDescription, errorCode),
-                null
+                null,
+                retryAfterSeconds > 0 ? Duration.ofSeconds(retryAfterSeconds) : null
         );
     }
 
@@ -346,7 +408,7 @@ public class TelegramApiSender {
     private NotificationErrorCode determineErrorCode(int telegramErrorCode) {
         return switch (telegramErrorCode) {
             case 400 -> NotificationErrorCode.TELEGRAM_INVALID_PARAMETERS;
-            case 401 -> NotificationErrorCode.TELEGRAM_BOT_ERROR;
+            case 401 -> NotificationErrorCode.TELEGRAM_CONFIGURATION_ERROR;
             case 403 -> NotificationErrorCode.TELEGRAM_INVALID_RECIPIENT;
             case 429 -> NotificationErrorCode.TELEGRAM_RATE_LIMITED;
             default -> NotificationErrorCode.TELEGRAM_SEND_FAILED;
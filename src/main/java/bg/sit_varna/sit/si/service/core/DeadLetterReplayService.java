@@ -0,0 +1,90 @@
+package bg.sit_varna.sit.si.service.core;
+
+import bg.sit_varna.sit.si.config.redis.RedisConfig;
+import bg.sit_varna.sit.si.dto.model.DeadLetter;
+import bg.sit_varna.sit.si.dto.request.ReplayDeadLettersRequest;
+import bg.sit_varna.sit.si.dto.response.ReplayDeadLettersResponse;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
+import bg.sit_varna.sit.si.service.redis.DeadLetterService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends dead-lettered notifications again through {@link NotificationService#retryNotification}.
+ *
+ * <p>A replay runs in the background at a fixed pace, so clearing a large backlog after an outage
+ * does not hit the recovering provider with everything at once. Each entry is taken out of the
+ * store before it is re-queued; only the caller that removed it replays it.</p>
+ */
+@ApplicationScoped
+public class DeadLetterReplayService {
+
+    private static final Logger LOG = Logger.getLogger(DeadLetterReplayService.class);
+
+    @Inject DeadLetterService deadLetterService;
+    @Inject NotificationService notificationService;
+    @Inject RedisConfig redisConfig;
+
+    public ReplayDeadLettersResponse replay(ReplayDeadLettersRequest request) {
+        RedisConfig.DeadLetterConfig config = redisConfig.deadLetter();
+        int limit = request.limit() != null
+                ? Math.min(request.limit(), config.replayMaxBatch())
+                : config.replayMaxBatch();
+        double rate = request.ratePerSecond() != null ? request.ratePerSecond() : config.replayRate();
+        String channel = request.channel() != null ? request.channel().name() : null;
+
+        List<String> ids = deadLetterService.list(channel, request.errorCode(), 0, limit).stream()
+                .map(DeadLetter::id)
+                .toList();
+
+        if (!ids.isEmpty()) {
+            Thread.ofVirtual().name("dead-letter-replay").start(() -> replayPaced(ids, rate));
+            LOG.infof("Replaying %d dead letters (channel=%s, errorCode=%s) at %.1f/s",
+                    ids.size(), channel, request.errorCode(), rate);
+        }
+        return ReplayDeadLettersResponse.of(ids.size(), rate);
+    }
+
+    private void replayPaced(List<String> ids, double rate) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long next = System.nanoTime();
+        int replayed = 0;
+
+        for (String id : ids) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            next += intervalNanos;
+
+            DeadLetter entry = deadLetterService.take(id);
+            if (entry == null) {
+                // Replayed by someone else in the meantime
+                continue;
+            }
+            if (requeue(entry)) {
+                replayed++;
+            }
+        }
+
+        LOG.infof("Dead-letter replay finished: %d of %d re-queued", replayed, ids.size());
+    }
+
+    private boolean requeue(DeadLetter entry) {
+        while (true) {
+            try {
+                notificationService.retryNotification(entry.notification().forReplay());
+                return true;
+            } catch (QueueOverloadedException e) {
+                // Back-pressure: wait for the queue instead of dropping the entry
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(e.getRetryAfterSeconds()));
+            } catch (Exception e) {
+                LOG.errorf(e, "Replay of %s failed; returning it to the dead-letter store", entry.id());
+                deadLetterService.add(entry.notification(), entry.errorCode(), entry.reason());
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package bg.sit_varna.sit.si.service.core;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.NotificationStatus;
+import bg.sit_varna.sit.si.constant.QueueTransport;
+import bg.sit_varna.sit.si.entity.NotificationRecord;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
+import bg.sit_varna.sit.si.mapper.NotificationMapper;
+import bg.sit_varna.sit.si.repository.NotificationRepository;
+import bg.sit_varna.sit.si.service.async.NotificationPublisher;
+import bg.sit_varna.sit.si.service.async.QueueMonitor;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Re-dispatches notifications left QUEUED or PROCESSING by a crashed pod.
+ *
+ * <p>Rows are scanned page by page with a keyset cursor on {@code (updated_at, id)}, so each query
+ * touches only one page of the {@code (status, updated_at, id)} index regardless of table size.
+ * Each row is claimed with a conditional update on its {@code updated_at}; when several replicas run
+ * the scan at the same time only one of them re-dispatches a given row.</p>
+ *
+ * <p>A row that is only waiting behind a long backlog must not be taken for an orphan. Every pass first
+ * bumps {@code updated_at} of the rows this pod still holds in memory, so the rows of live pods never
+ * go stale, and the rows this pod tracks are skipped. The Redis Streams transport is not scanned at all:
+ * its entries survive a crash and are reclaimed from the pending list with XAUTOCLAIM.</p>
+ */
+@ApplicationScoped
+public class NotificationRecoveryService {
+
+    private static final Logger LOG = Logger.getLogger(NotificationRecoveryService.class);
+    private static final LocalDateTime SCAN_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Inject NotificationRepository notificationRepository;
+    @Inject NotificationMapper notificationMapper;
+    @Inject NotificationPublisher notificationPublisher;
+    @Inject QueueConfig queueConfig;
+    @Inject QueueMonitor queueMonitor;
+
+    /**
+     * Runs one full pass over both statuses.
+     *
+     * @return number of notifications re-dispatched
+     */
+    public int recover() {
+        if (queueConfig.transport() == QueueTransport.REDIS_STREAMS) {
+            return 0;
+        }
+
+        refreshLiveRows();
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(queueConfig.recovery().staleAfter());
+        int recovered = 0;
+
+        try {
+            // In outbox mode QUEUED rows are the relay's job; only stuck PROCESSING rows need help
+            if (!queueConfig.outbox().enabled()) {
+                recovered += recoverStatus(NotificationStatus.QUEUED, cutoff);
+            }
+            recovered += recoverStatus(NotificationStatus.PROCESSING, cutoff);
+        } catch (QueueOverloadedException e) {
+            LOG.warnf("Recovery paused after %d notifications: queue is full", recovered);
+        }
+
+        return recovered;
+    }
+
+    private int recoverStatus(NotificationStatus status, LocalDateTime cutoff) {
+        int pageSize = queueConfig.recovery().pageSize();
+        LocalDateTime afterUpdatedAt = SCAN_START;
+        String afterId = "";
+        int recovered = 0;
+
+        List<NotificationRecord> page;
+        do {
+            page = findPage(status, cutoff, afterUpdatedAt, afterId, pageSize);
+
+            for (NotificationRecord record : page) {
+                if (claimAndDispatch(record)) {
+                    recovered++;
+                }
+            }
+
+            if (!page.isEmpty()) {
+                NotificationRecord last = page.get(page.size() - 1);
+                afterUpdatedAt = last.getUpdatedAt();
+                afterId = last.getId();
+            }
+        } while (page.size() == pageSize);
+
+        if (recovered > 0) {
+            LOG.infof("Recovered %d orphaned %s notifications", recovered, status);
+        }
+        return recovered;
+    }
+
+    private void refreshLiveRows() {
+        List<String> tracked = queueMonitor.trackedIds();
+        int pageSize = queueConfig.recovery().pageSize();
+        for (int from = 0; from < tracked.size(); from += pageSize) {
+            touch(tracked.subList(from, Math.min(tracked.size(), from + pageSize)));
+        }
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    protected void touch(List<String> ids) {
+        notificationRepository.touchActive(ids, LocalDateTime.now());
+    }
+
+    @Transactional
+    protected List<NotificationRecord> findPage(NotificationStatus status, LocalDateTime cutoff,
+                                                LocalDateTime afterUpdatedAt, String afterId, int limit) {
+        return notificationRepository.findStalePage(status, cutoff, afterUpdatedAt, afterId, limit);
+    }
+
+    private boolean claimAndDispatch(NotificationRecord record) {
+        if (queueMonitor.isTracked(record.getId())) {
+            return false;
+        }
+
+        boolean outbox = queueConfig.outbox().enabled();
+        // Outbox: hand the row back to the relay. Otherwise: keep the status and publish directly.
+        NotificationStatus newStatus = outbox ? NotificationStatus.QUEUED : record.getStatus();
+
+        if (!claim(record, newStatus)) {
+            return false;
+        }
+
+        if (!outbox) {
+            notificationPublisher.publish(notificationMapper.toDomain(record));
+        }
+        LOG.debugf("Re-dispatched orphaned notification %s (was %s since %s)",
+                record.getId(), record.getStatus(), record.getUpdatedAt());
+        return true;
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    protected boolean claim(NotificationRecord record, NotificationStatus newStatus) {
+        return notificationRepository.claimStale(record.getId(), record.getStatus(), record.getUpdatedAt(),
+                newStatus, LocalDateTime.now());
+    }
+}
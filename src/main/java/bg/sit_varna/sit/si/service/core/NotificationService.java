@@ -1,21 +1,29 @@
 package bg.sit_varna.sit.si.service.core;
 
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.AdmissionStatus;
 import bg.sit_varna.sit.si.constant.NotificationErrorCode;
 import bg.sit_varna.sit.si.constant.NotificationStatus;
 import bg.sit_varna.sit.si.dto.model.Notification;
 import bg.sit_varna.sit.si.entity.NotificationRecord;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
 import bg.sit_varna.sit.si.exception.exceptions.RateLimitException;
 import bg.sit_varna.sit.si.repository.NotificationRepository;
+import bg.sit_varna.sit.si.service.async.NotificationPublisher;
+import bg.sit_varna.sit.si.service.async.QueueMonitor;
 import bg.sit_varna.sit.si.service.redis.DeduplicationService;
 import bg.sit_varna.sit.si.service.redis.RateLimitService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
-import org.eclipse.microprofile.reactive.messaging.Channel;
-import org.eclipse.microprofile.reactive.messaging.Emitter;
 import org.jboss.logging.Logger;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 @ApplicationScoped
@@ -39,16 +47,32 @@ public class NotificationService {
     NotificationRepository notificationRepository;
 
     @Inject
-    @Channel("notification-queue")
-    Emitter<Notification> notificationEmitter;
+    NotificationPublisher notificationPublisher;
+
+    @Inject
+    QueueMonitor queueMonitor;
+
+    @Inject
+    QueueConfig queueConfig;
+
+    @Inject
+    ScheduledSendService scheduledSendService;
+
+    @Inject
+    TenantService tenantService;
 
     public void dispatchNotification(Notification request) {
-        // 1. Rate Limiting
+        // 0. Load Shedding (scheduled sends wait in Redis, not in the queue)
+        if (!request.isScheduled()) {
+            checkQueueCapacity(Locale.forLanguageTag(request.getLocale()));
+        }
+
+        // 1. Tenant quota, then the recipient's rate limit
+        tenantService.checkQuota(request);
         checkRateLimit(request);
 
         // 2. Deduplication
-        String contentKey = request.usesTemplate() ? request.getTemplateName() : request.getMessage();
-        if (deduplicationService.isDuplicate(request.getRecipient(), request.getChannel(), contentKey)) {
+        if (deduplicationService.isDuplicate(request)) {
             LOG.warnf("Skipping duplicate notification for %s", request.getRecipient());
             return;
         }
@@ -56,8 +80,106 @@ public class NotificationService {
         // 3. Persistence (In its own transaction to prevent Race Condition)
         persistRecord(request);
 
-        // 4. Async Dispatch
-        enqueue(request);
+        // 4. Async Dispatch (in outbox mode the relay picks the row up instead)
+        if (request.isScheduled()) {
+            scheduledSendService.schedule(request);
+        } else if (!queueConfig.outbox().enabled()) {
+            enqueue(request);
+        }
+    }
+
+    /**
+     * Admits many notifications at once. Tenant quotas, rate limiting and deduplication are each checked
+     * in one pipelined Redis round trip, all accepted records are inserted in one transaction,
+     * and only then are the notifications emitted to the queue.
+     *
+     * <p>Queue room for the whole batch is reserved up front, so a full queue rejects the batch before
+     * any row is inserted or dedup key set, instead of failing after part of it was queued.</p>
+     *
+     * @return one admission status per notification, in input order
+     */
+    public List<AdmissionStatus> dispatchBatch(List<Notification> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+
+        Locale locale = Locale.forLanguageTag(requests.get(0).getLocale());
+        checkQueueCapacity(locale);
+
+        int reserved = queueConfig.outbox().enabled()
+                ? 0
+                : (int) requests.stream().filter(notification -> !notification.isScheduled()).count();
+        if (!queueMonitor.tryReserve(reserved)) {
+            throw overloaded(locale);
+        }
+
+        try {
+            List<AdmissionStatus> statuses = new ArrayList<>(requests.size());
+
+            // 1. Tenant quota (single pipelined round trip)
+            boolean[] withinQuota = tenantService.checkQuotaBatch(requests);
+
+            List<Notification> candidates = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                if (withinQuota[i]) {
+                    candidates.add(requests.get(i));
+                }
+            }
+
+            // 2. Rate Limiting (single pipelined round trip, only for items within the quota)
+            boolean[] allowed = rateLimitService.checkBatch(candidates);
+
+            List<Notification> withinLimit = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                if (allowed[i]) {
+                    withinLimit.add(candidates.get(i));
+                }
+            }
+
+            // 3. Deduplication (single pipelined round trip, only for items that passed the limit)
+            boolean[] duplicates = deduplicationService.markBatch(withinLimit);
+
+            List<Notification> accepted = new ArrayList<>(withinLimit.size());
+            int candidateIndex = 0;
+            int limitIndex = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                if (!withinQuota[i]) {
+                    statuses.add(AdmissionStatus.QUOTA_EXCEEDED);
+                } else if (!allowed[candidateIndex++]) {
+                    statuses.add(AdmissionStatus.RATE_LIMITED);
+                } else if (duplicates[limitIndex++]) {
+                    statuses.add(AdmissionStatus.DUPLICATE);
+                } else {
+                    statuses.add(AdmissionStatus.ACCEPTED);
+                    accepted.add(requests.get(i));
+                }
+            }
+
+            if (accepted.isEmpty()) {
+                return statuses;
+            }
+
+            // 4. Persistence (one transaction, batched inserts)
+            persistRecords(accepted);
+
+            // 5. Async Dispatch (in outbox mode the relay picks the rows up instead)
+            for (Notification notification : accepted) {
+                if (notification.isScheduled()) {
+                    scheduledSendService.schedule(notification);
+                } else if (!queueConfig.outbox().enabled()) {
+                    // Its reserved room becomes the tracked entry, so the depth does not change
+                    queueMonitor.release(1);
+                    reserved--;
+                    enqueue(notification);
+                }
+            }
+
+            LOG.infof("Batch admitted %d of %d notifications", accepted.size(), requests.size());
+            return statuses;
+        } finally {
+            // Room of rejected items, or of every item when admission failed
+            queueMonitor.release(reserved);
+        }
     }
 
     public void retryNotification(Notification request) {
@@ -65,10 +187,27 @@ public class NotificationService {
         enqueue(request);
     }
 
+    private void checkQueueCapacity(Locale locale) {
+        if (queueMonitor.isDraining() || queueMonitor.isAboveHighWaterMark()) {
+            throw overloaded(locale);
+        }
+    }
+
+    private QueueOverloadedException overloaded(Locale locale) {
+        int retryAfter = queueConfig.retryAfterSeconds();
+        return new QueueOverloadedException(
+                messageService.getTitle(NotificationErrorCode.QUEUE_OVERLOADED, locale),
+                messageService.getMessage(NotificationErrorCode.QUEUE_OVERLOADED,
+                        locale, queueMonitor.depth(), retryAfter),
+                retryAfter
+        );
+    }
+
     private void checkRateLimit(Notification request) {
         Locale locale = Locale.forLanguageTag(request.getLocale());
-        if (!rateLimitService.isAllowed(request.getRecipient(), request.getChannel())) {
-            long resetTime = rateLimitService.getResetTime(request.getRecipient(), request.getChannel());
+        RateLimitService.Decision decision = rateLimitService.check(request.getRecipient(), request.getChannel());
+        if (!decision.allowed()) {
+            long resetTime = decision.getResetTime();
             throw new RateLimitException(
                     messageService.getTitle(NotificationErrorCode.RATE_LIMIT_EXCEEDED, locale),
                     messageService.getMessage(NotificationErrorCode.RATE_LIMIT_EXCEEDED,
@@ -84,19 +223,35 @@ public class NotificationService {
             return;
         }
 
+        notificationRepository.persist(toRecord(request));
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    protected void persistRecords(List<Notification> requests) {
+        // Ids are freshly generated, so no existence check is needed; inserts are grouped by JDBC batching
+        notificationRepository.persist(requests.stream().map(this::toRecord));
+    }
+
+    private NotificationRecord toRecord(Notification request) {
         NotificationRecord record = new NotificationRecord();
         record.setId(request.getId());
         record.setRecipient(request.getRecipient());
         record.setChannel(request.getChannel());
         record.setTemplateName(request.getTemplateName());
-        record.setStatus(NotificationStatus.QUEUED);
+        record.setStatus(request.isScheduled() ? NotificationStatus.SCHEDULED : NotificationStatus.QUEUED);
+        if (request.isScheduled()) {
+            record.setSendAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(request.getSendAt()), ZoneId.systemDefault()));
+        }
+        record.setLocale(request.getLocale());
+        record.setMessage(request.getMessage());
+        record.setPriority(request.getPriority());
         record.setPayload(request.getData());
-
-        notificationRepository.persist(record);
+        record.setTenant(request.getTenant());
+        return record;
     }
 
     private void enqueue(Notification request) {
         LOG.debugf("Enqueuing notification for: %s", request.getRecipient());
-        notificationEmitter.send(request);
+        notificationPublisher.publish(request);
     }
 }
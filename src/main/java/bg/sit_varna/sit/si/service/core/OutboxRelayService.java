@@ -0,0 +1,59 @@
+package bg.sit_varna.sit.si.service.core;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.NotificationStatus;
+import bg.sit_varna.sit.si.entity.NotificationRecord;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
+import bg.sit_varna.sit.si.mapper.NotificationMapper;
+import bg.sit_varna.sit.si.repository.NotificationRepository;
+import bg.sit_varna.sit.si.service.async.NotificationPublisher;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+/**
+ * Moves QUEUED rows from the {@code notifications} table to the queue (transactional outbox).
+ *
+ * <p>Rows are locked with SKIP LOCKED, published, and flipped to PROCESSING in the same transaction.
+ * A crash before commit releases the locks and leaves the rows QUEUED for the next poll, so every
+ * committed notification is published at least once and replicas never relay the same row concurrently.</p>
+ */
+@ApplicationScoped
+public class OutboxRelayService {
+
+    private static final Logger LOG = Logger.getLogger(OutboxRelayService.class);
+
+    @Inject NotificationRepository notificationRepository;
+    @Inject NotificationMapper notificationMapper;
+    @Inject NotificationPublisher notificationPublisher;
+    @Inject QueueConfig queueConfig;
+
+    /**
+     * Relays one batch.
+     *
+     * @return number of rows published
+     */
+    @Transactional
+    public int relayBatch() {
+        List<NotificationRecord> records = notificationRepository.lockOldestByStatus(
+                NotificationStatus.QUEUED, queueConfig.outbox().batchSize());
+
+        int published = 0;
+        for (NotificationRecord record : records) {
+            try {
+                notificationPublisher.publish(notificationMapper.toDomain(record));
+            } catch (QueueOverloadedException e) {
+                // Remaining rows stay QUEUED and are retried on the next poll
+                LOG.debugf("Queue full, outbox relay stopped after %d of %d rows", published, records.size());
+                break;
+            }
+            record.setStatus(NotificationStatus.PROCESSING);
+            published++;
+        }
+
+        return published;
+    }
+}
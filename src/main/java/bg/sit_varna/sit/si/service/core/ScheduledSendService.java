@@ -0,0 +1,283 @@
+package bg.sit_varna.sit.si.service.core;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.ErrorCategory;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.constant.NotificationStatus;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.entity.NotificationRecord;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
+import bg.sit_varna.sit.si.mapper.NotificationMapper;
+import bg.sit_varna.sit.si.repository.NotificationRepository;
+import bg.sit_varna.sit.si.service.async.HierarchicalTimingWheel;
+import bg.sit_varna.sit.si.service.async.NotificationPublisher;
+import bg.sit_varna.sit.si.service.async.QueueMonitor;
+import bg.sit_varna.sit.si.service.redis.RedisRetryService;
+import bg.sit_varna.sit.si.service.redis.ScheduledNotificationStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.redis.datasource.sortedset.ScoredValue;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers notifications at their requested {@code sendAt}.
+ *
+ * <p>Every scheduled id is kept in a Redis sorted set, so nothing is lost on restart. Ids due within
+ * {@code queue.schedule.horizon} are also loaded into an in-process {@link HierarchicalTimingWheel},
+ * which a single ticker thread advances every {@code queue.schedule.tick}. Every replica loads the same
+ * horizon; the database row decides who sends: the first replica to move it from SCHEDULED to QUEUED
+ * publishes it, the others only drop their copy of the timer. Cancelling uses the same transition,
+ * to CANCELLED, so a send and a cancel can never both win.</p>
+ *
+ * <p>The row is committed before its timer is written to Redis. Should that write fail, the horizon load
+ * finds the SCHEDULED row without a timer once it comes within the horizon and re-indexes it.</p>
+ */
+@ApplicationScoped
+public class ScheduledSendService {
+
+    private static final Logger LOG = Logger.getLogger(ScheduledSendService.class);
+
+    @Inject QueueConfig queueConfig;
+    @Inject Clock clock;
+    @Inject ScheduledNotificationStore store;
+    @Inject NotificationRepository notificationRepository;
+    @Inject NotificationMapper notificationMapper;
+    @Inject NotificationPublisher notificationPublisher;
+    @Inject RedisRetryService redisRetryService;
+    @Inject QueueMonitor queueMonitor;
+    @Inject MessageService messageService;
+    @Inject MeterRegistry registry;
+
+    private HierarchicalTimingWheel<Due> wheel;
+    private ExecutorService releasers;
+    private Thread ticker;
+    private Timer lateness;
+    private volatile boolean running;
+
+    void onStart(@Observes StartupEvent ev) {
+        QueueConfig.ScheduleConfig config = queueConfig.schedule();
+        wheel = new HierarchicalTimingWheel<>(config.tick().toMillis(), config.wheelSize(), clock.millis());
+        releasers = Executors.newVirtualThreadPerTaskExecutor();
+
+        Gauge.builder("notification.scheduled.pending", wheel, HierarchicalTimingWheel::size)
+                .description("Scheduled notifications held in the in-memory timing wheel")
+                .register(registry);
+        lateness = Timer.builder("notification.scheduled.lateness")
+                .description("Delay between the requested send time and the moment the timer fired")
+                .register(registry);
+
+        running = true;
+        ticker = Thread.ofVirtual().name("notification-timing-wheel").start(this::tickLoop);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        ticker.interrupt();
+        releasers.shutdown();
+        try {
+            releasers.awaitTermination(queueConfig.drainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stores the timer durably and arms it locally if it falls within the horizon.
+     * The record must already be persisted with status SCHEDULED.
+     */
+    public void schedule(Notification notification) {
+        store.add(notification.getId(), notification.getSendAt());
+
+        if (notification.getSendAt() < clock.millis() + queueConfig.schedule().horizon().toMillis()) {
+            arm(notification.getId(), notification.getSendAt());
+        }
+        LOG.debugf("Scheduled notification %s for %s", notification.getId(),
+                Instant.ofEpochMilli(notification.getSendAt()));
+    }
+
+    /**
+     * @throws NotificationException if the notification is unknown, was not scheduled, or has already been released
+     */
+    public void cancel(String id, Locale locale) {
+        if (!transition(id, NotificationStatus.CANCELLED)) {
+            throw new NotificationException(
+                    NotificationErrorCode.SCHEDULED_NOTIFICATION_NOT_FOUND,
+                    ErrorCategory.VALIDATION,
+                    messageService.getTitle(NotificationErrorCode.SCHEDULED_NOTIFICATION_NOT_FOUND, locale),
+                    messageService.getMessage(NotificationErrorCode.SCHEDULED_NOTIFICATION_NOT_FOUND, locale, id)
+            );
+        }
+        store.remove(id);
+        if (wheel != null) {
+            wheel.cancel(id);
+        }
+        LOG.infof("Cancelled scheduled notification %s", id);
+    }
+
+    /**
+     * Arms every stored timer that falls within the horizon, then re-indexes SCHEDULED rows within the
+     * horizon that have no timer in Redis. Already armed ids are skipped by the wheel.
+     *
+     * @return number of ids read from Redis
+     */
+    public int loadHorizon() {
+        if (wheel == null) {
+            return 0;
+        }
+
+        QueueConfig.ScheduleConfig config = queueConfig.schedule();
+        long until = clock.millis() + config.horizon().toMillis();
+        long offset = 0;
+        Set<String> stored = new HashSet<>();
+        List<ScoredValue<String>> page;
+        do {
+            page = store.dueBefore(until, offset, config.loadBatchSize());
+            for (ScoredValue<String> entry : page) {
+                stored.add(entry.value());
+                arm(entry.value(), (long) entry.score());
+            }
+            offset += page.size();
+        } while (page.size() == config.loadBatchSize());
+
+        reindexMissing(until, stored);
+        return (int) offset;
+    }
+
+    /**
+     * Restores the timers of SCHEDULED rows due before {@code until} that are not in {@code stored}.
+     * Adding the same id and score again is harmless, so a row scheduled concurrently needs no care.
+     */
+    private void reindexMissing(long until, Set<String> stored) {
+        int batchSize = queueConfig.schedule().loadBatchSize();
+        LocalDateTime untilTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(until), ZoneId.systemDefault());
+        LocalDateTime afterSendAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+        String afterId = "";
+        int reindexed = 0;
+
+        List<NotificationRecord> page;
+        do {
+            page = notificationRepository.findScheduledPage(untilTime, afterSendAt, afterId, batchSize);
+            for (NotificationRecord record : page) {
+                if (!stored.contains(record.getId())) {
+                    long sendAt = notificationMapper.toEpochMillis(record.getSendAt());
+                    store.add(record.getId(), sendAt);
+                    arm(record.getId(), sendAt);
+                    reindexed++;
+                }
+            }
+            if (!page.isEmpty()) {
+                NotificationRecord last = page.getLast();
+                afterSendAt = last.getSendAt();
+                afterId = last.getId();
+            }
+        } while (page.size() == batchSize);
+
+        if (reindexed > 0) {
+            LOG.warnf("Re-indexed %d scheduled notifications that had no timer in Redis", reindexed);
+        }
+    }
+
+    private void arm(String id, long sendAt) {
+        if (wheel == null) {
+            // Not started yet; the first horizon load picks it up from Redis
+            return;
+        }
+        Due due = new Due(id, sendAt);
+        if (!wheel.add(id, sendAt, due)) {
+            releasers.submit(() -> release(due));
+        }
+    }
+
+    private void tickLoop() {
+        long tickMillis = queueConfig.schedule().tick().toMillis();
+        while (running && !queueMonitor.isDraining()) {
+            try {
+                Thread.sleep(tickMillis);
+                for (Due due : wheel.advanceTo(clock.millis())) {
+                    releasers.submit(() -> release(due));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.error("Timing wheel tick failed", e);
+            }
+        }
+    }
+
+    private void release(Due due) {
+        try {
+            Notification notification = claim(due.id());
+            store.remove(due.id());
+            if (notification == null) {
+                // Cancelled, or another replica got there first
+                return;
+            }
+
+            lateness.record(Math.max(0, clock.millis() - due.sendAt()), TimeUnit.MILLISECONDS);
+            if (!queueConfig.outbox().enabled()) {
+                publish(notification);
+            }
+        } catch (Exception e) {
+            // Timer stays in Redis and is re-armed by the next horizon load
+            LOG.errorf(e, "Failed to release scheduled notification %s", due.id());
+        }
+    }
+
+    private void publish(Notification notification) {
+        try {
+            notificationPublisher.publish(notification);
+        } catch (QueueOverloadedException e) {
+            // Row is already QUEUED; hand it to the retry queue rather than reverting the claim
+            redisRetryService.scheduleRetry(notification, e.getRetryAfterSeconds());
+        }
+    }
+
+    /**
+     * @return the notification if this replica moved it to QUEUED, otherwise {@code null}
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    protected Notification claim(String id) {
+        if (!notificationRepository.compareAndSetStatus(id, NotificationStatus.SCHEDULED,
+                NotificationStatus.QUEUED, now())) {
+            return null;
+        }
+        NotificationRecord record = notificationRepository.findById(id);
+        return notificationMapper.toDomain(record);
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    protected boolean transition(String id, NotificationStatus newStatus) {
+        return notificationRepository.compareAndSetStatus(id, NotificationStatus.SCHEDULED, newStatus, now());
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault());
+    }
+
+    private record Due(String id, long sendAt) {
+    }
+}
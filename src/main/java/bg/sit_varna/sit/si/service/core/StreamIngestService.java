@@ -0,0 +1,209 @@
+package bg.sit_varna.sit.si.service.core;
+
+import bg.sit_varna.sit.si.config.app.IngestConfig;
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.constant.AdmissionStatus;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.dto.request.SendNotificationRequest;
+import bg.sit_varna.sit.si.dto.response.StreamIngestResponse;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
+import bg.sit_varna.sit.si.mapper.NotificationMapper;
+import bg.sit_varna.sit.si.service.async.QueueMonitor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads an NDJSON body line by line and dispatches the parsed notifications in fixed-size chunks,
+ * so memory usage depends on the chunk size and not on the size of the upload.
+ *
+ * <p>When the queue does not drain in time, reading stops and the summary is returned marked as aborted,
+ * with the last line that was handled, so the sender can resume from the line after it.</p>
+ */
+@ApplicationScoped
+public class StreamIngestService {
+
+    private static final Logger LOG = Logger.getLogger(StreamIngestService.class);
+
+    private final NotificationService notificationService;
+    private final NotificationMapper notificationMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final IngestConfig ingestConfig;
+    private final QueueMonitor queueMonitor;
+    private final QueueConfig queueConfig;
+
+    @Inject
+    public StreamIngestService(NotificationService notificationService,
+                               NotificationMapper notificationMapper,
+                               ObjectMapper objectMapper,
+                               Validator validator,
+                               IngestConfig ingestConfig,
+                               QueueMonitor queueMonitor,
+                               QueueConfig queueConfig) {
+        this.notificationService = notificationService;
+        this.notificationMapper = notificationMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.ingestConfig = ingestConfig;
+        this.queueMonitor = queueMonitor;
+        this.queueConfig = queueConfig;
+    }
+
+    public StreamIngestResponse ingest(InputStream body, Locale locale, String tenant) {
+        int chunkSize = ingestConfig.stream().chunkSize();
+        int maxReportedErrors = ingestConfig.stream().maxReportedErrors();
+
+        Progress progress = new Progress();
+        List<StreamIngestResponse.LineError> errors = new ArrayList<>();
+        List<Notification> chunk = new ArrayList<>(chunkSize);
+
+        boolean aborted = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                progress.linesRead = lineNumber;
+                if (line.isBlank()) {
+                    continue;
+                }
+                progress.totalLines++;
+
+                String error = parseLine(line, locale, tenant, chunk);
+                if (error != null) {
+                    progress.invalid++;
+                    if (errors.size() < maxReportedErrors) {
+                        errors.add(new StreamIngestResponse.LineError(lineNumber, error));
+                    }
+                }
+
+                if (chunk.size() >= chunkSize && !dispatchChunk(chunk, progress)) {
+                    aborted = true;
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read NDJSON body", e);
+        }
+
+        if (!aborted) {
+            aborted = !chunk.isEmpty() && !dispatchChunk(chunk, progress);
+        }
+        if (aborted) {
+            LOG.warnf("Stream ingest aborted after %d chunks at line %d: queue stayed above the high-water mark",
+                    progress.chunks, progress.processedLines);
+        } else {
+            progress.processedLines = progress.linesRead;
+        }
+
+        LOG.infof("Stream ingest finished: %d lines, %d accepted, %d rate limited, %d duplicates, %d invalid in %d chunks",
+                progress.totalLines, progress.accepted, progress.rateLimited, progress.duplicates,
+                progress.invalid, progress.chunks);
+
+        return new StreamIngestResponse(
+                progress.totalLines,
+                progress.accepted,
+                progress.rateLimited,
+                progress.duplicates,
+                progress.invalid,
+                progress.chunks,
+                aborted,
+                progress.processedLines,
+                errors,
+                LocalDateTime.now()
+        );
+    }
+
+    /**
+     * Parses and validates one line, appending the resulting notification to the chunk.
+     *
+     * @return the rejection reason, or {@code null} when the line was accepted into the chunk
+     */
+    private String parseLine(String line, Locale locale, String tenant, List<Notification> chunk) {
+        SendNotificationRequest request;
+        try {
+            request = objectMapper.readValue(line, SendNotificationRequest.class);
+        } catch (JsonProcessingException e) {
+            return "Malformed JSON: " + e.getOriginalMessage();
+        }
+
+        if (request == null) {
+            return "Line does not contain a notification object";
+        }
+
+        Set<ConstraintViolation<SendNotificationRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+
+        chunk.add(notificationMapper.toDomain(request, locale, tenant));
+        return null;
+    }
+
+    /**
+     * @return {@code false} when the queue had no room and the chunk was not dispatched
+     */
+    private boolean dispatchChunk(List<Notification> chunk, Progress progress) {
+        // Backpressure: hold the upload until workers catch up instead of shedding mid-stream
+        if (!queueMonitor.awaitCapacity(queueConfig.ingestMaxWait())) {
+            return false;
+        }
+
+        List<AdmissionStatus> statuses;
+        try {
+            statuses = notificationService.dispatchBatch(chunk);
+        } catch (QueueOverloadedException e) {
+            // Rejected before anything was written, so the chunk can be sent again as a whole
+            return false;
+        }
+
+        for (AdmissionStatus status : statuses) {
+            switch (status) {
+                case ACCEPTED -> progress.accepted++;
+                case RATE_LIMITED, QUOTA_EXCEEDED -> progress.rateLimited++;
+                case DUPLICATE -> progress.duplicates++;
+            }
+        }
+        progress.chunks++;
+
+        LOG.infof("Stream ingest chunk %d dispatched: %d items (%d accepted so far of %d lines read)",
+                progress.chunks, chunk.size(), progress.accepted, progress.totalLines);
+
+        progress.processedLines = progress.linesRead;
+        chunk.clear();
+        return true;
+    }
+
+    private static final class Progress {
+        long totalLines;
+        long accepted;
+        long rateLimited;
+        long duplicates;
+        long invalid;
+        long chunks;
+        long linesRead;
+        long processedLines;
+    }
+}
@@ -0,0 +1,130 @@
+package bg.sit_varna.sit.si.service.core;
+
+import bg.sit_varna.sit.si.config.app.TenantConfig;
+import bg.sit_varna.sit.si.constant.ErrorCategory;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.exception.exceptions.RateLimitException;
+import bg.sit_varna.sit.si.service.redis.RateLimitService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Resolves the tenant of a request from its API key and enforces the tenant's quotas at ingest.
+ * The workers use {@link #weight} to share throughput fairly between tenants.
+ */
+@ApplicationScoped
+public class TenantService {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final TenantConfig config;
+    private final RateLimitService rateLimitService;
+    private final MessageService messageService;
+    private final Map<String, String> tenantsByApiKey = new HashMap<>();
+
+    @Inject
+    public TenantService(TenantConfig config, RateLimitService rateLimitService, MessageService messageService) {
+        this.config = config;
+        this.rateLimitService = rateLimitService;
+        this.messageService = messageService;
+        config.products().forEach((tenant, product) -> {
+            if (tenantsByApiKey.put(product.apiKey(), tenant) != null) {
+                throw new IllegalStateException("API key of tenant " + tenant + " is used by another tenant");
+            }
+        });
+    }
+
+    /**
+     * @return the tenant the key belongs to, the default tenant when no key was sent and one is not
+     * required, or {@code null} when tenants are disabled
+     */
+    public String resolve(String apiKey, Locale locale) {
+        if (!config.enabled()) {
+            return null;
+        }
+        if (apiKey != null && !apiKey.isBlank()) {
+            String tenant = tenantsByApiKey.get(apiKey);
+            if (tenant != null) {
+                return tenant;
+            }
+        } else if (!config.requireApiKey()) {
+            return config.defaultTenant();
+        }
+
+        throw new NotificationException(
+                NotificationErrorCode.TENANT_UNKNOWN_API_KEY,
+                ErrorCategory.VALIDATION,
+                messageService.getTitle(NotificationErrorCode.TENANT_UNKNOWN_API_KEY, locale),
+                messageService.getMessage(NotificationErrorCode.TENANT_UNKNOWN_API_KEY, locale)
+        );
+    }
+
+    public void checkQuota(Notification notification) {
+        if (notification.getTenant() == null) {
+            return;
+        }
+
+        RateLimitService.Decision decision = rateLimitService.checkQuota(List.of(quotaOf(notification.getTenant()))).get(0);
+        if (!decision.allowed()) {
+            Locale locale = Locale.forLanguageTag(notification.getLocale());
+            long resetTime = decision.getResetTime();
+            throw new RateLimitException(
+                    NotificationErrorCode.TENANT_QUOTA_EXCEEDED,
+                    messageService.getTitle(NotificationErrorCode.TENANT_QUOTA_EXCEEDED, locale),
+                    messageService.getMessage(NotificationErrorCode.TENANT_QUOTA_EXCEEDED,
+                            locale, notification.getTenant(), resetTime),
+                    resetTime
+            );
+        }
+    }
+
+    /**
+     * @return one flag per notification, in input order; {@code true} when within the tenant's quota
+     */
+    public boolean[] checkQuotaBatch(List<Notification> notifications) {
+        boolean[] allowed = new boolean[notifications.size()];
+        List<RateLimitService.TenantQuota> quotas = notifications.stream()
+                .map(notification -> notification.getTenant() != null ? quotaOf(notification.getTenant()) : null)
+                .toList();
+
+        List<RateLimitService.TenantQuota> enforced = quotas.stream().filter(Objects::nonNull).toList();
+        List<RateLimitService.Decision> decisions = rateLimitService.checkQuota(enforced);
+
+        int decisionIndex = 0;
+        for (int i = 0; i < allowed.length; i++) {
+            allowed[i] = quotas.get(i) == null || decisions.get(decisionIndex++).allowed();
+        }
+        return allowed;
+    }
+
+    /**
+     * Scheduling weight; notifications admitted while tenants were disabled share the default tenant's.
+     */
+    public int weight(String tenant) {
+        TenantConfig.Product product = tenant != null ? config.products().get(tenant) : null;
+        return product != null ? product.weight().orElse(config.defaults().weight()) : config.defaults().weight();
+    }
+
+    public String getDefaultTenant() {
+        return config.defaultTenant();
+    }
+
+    private RateLimitService.TenantQuota quotaOf(String tenant) {
+        TenantConfig.Product product = config.products().get(tenant);
+        TenantConfig.TenantLimits defaults = config.defaults();
+        if (product == null) {
+            return new RateLimitService.TenantQuota(tenant, defaults.dailyQuota(), defaults.perMinute());
+        }
+        return new RateLimitService.TenantQuota(tenant,
+                product.dailyQuota().orElse(defaults.dailyQuota()),
+                product.perMinute().orElse(defaults.perMinute()));
+    }
+}
@@ -0,0 +1,147 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import bg.sit_varna.sit.si.dto.model.DeadLetter;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.hash.HashCommands;
+import io.quarkus.redis.datasource.sortedset.SortedSetCommands;
+import io.quarkus.redis.datasource.sortedset.ZRangeArgs;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Redis-backed dead-letter store.
+ *
+ * <p>Entries live in a hash keyed by notification id. A sorted set indexes them by the time they died,
+ * so listings come back newest first without loading the whole hash, and a counter hash keeps
+ * per-channel and per-error-code totals so counting never scans.</p>
+ */
+@ApplicationScoped
+public class DeadLetterService {
+
+    private static final Logger LOG = Logger.getLogger(DeadLetterService.class);
+    private static final String ENTRIES_KEY = "notifications:dlq";
+    private static final String INDEX_KEY = "notifications:dlq:index";
+    private static final String COUNTS_KEY = "notifications:dlq:counts";
+    private static final String CHANNEL_PREFIX = "channel:";
+    private static final String ERROR_PREFIX = "error:";
+    private static final int SCAN_PAGE = 500;
+
+    private final HashCommands<String, String, DeadLetter> entryCommands;
+    private final HashCommands<String, String, Long> countCommands;
+    private final SortedSetCommands<String, String> indexCommands;
+
+    @Inject Clock clock;
+
+    @Inject
+    public DeadLetterService(RedisDataSource dataSource) {
+        this.entryCommands = dataSource.hash(String.class, String.class, DeadLetter.class);
+        this.countCommands = dataSource.hash(String.class, String.class, Long.class);
+        this.indexCommands = dataSource.sortedSet(String.class, String.class);
+    }
+
+    public void add(Notification notification, String errorCode, String reason) {
+        DeadLetter entry = new DeadLetter(notification.getId(), notification, errorCode, reason,
+                notification.getRetryAttempt(), clock.millis());
+
+        if (!entryCommands.hsetnx(ENTRIES_KEY, entry.id(), entry)) {
+            return;
+        }
+        indexCommands.zadd(INDEX_KEY, entry.deadAt(), entry.id());
+        countCommands.hincrby(COUNTS_KEY, CHANNEL_PREFIX + notification.getChannel(), 1);
+        countCommands.hincrby(COUNTS_KEY, ERROR_PREFIX + errorCode, 1);
+
+        LOG.warnf("Notification %s dead-lettered [%s]: %s", entry.id(), errorCode, reason);
+    }
+
+    /**
+     * Newest entries first, optionally filtered by channel and/or error code ({@code null} matches all).
+     */
+    public List<DeadLetter> list(String channel, String errorCode, int offset, int limit) {
+        List<DeadLetter> matches = new ArrayList<>(limit);
+        int skipped = 0;
+        long start = 0;
+
+        List<String> ids;
+        do {
+            ids = indexCommands.zrange(INDEX_KEY, start, start + SCAN_PAGE - 1, new ZRangeArgs().rev());
+            start += ids.size();
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Map<String, DeadLetter> entries = entryCommands.hmget(ENTRIES_KEY, ids.toArray(String[]::new));
+            for (String id : ids) {
+                DeadLetter entry = entries.get(id);
+                if (entry == null || !matches(entry, channel, errorCode)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    matches.add(entry);
+                    if (matches.size() == limit) {
+                        return matches;
+                    }
+                }
+            }
+        } while (ids.size() == SCAN_PAGE);
+
+        return matches;
+    }
+
+    /**
+     * Totals grouped as {@code byChannel} and {@code byErrorCode}.
+     */
+    public Map<String, Map<String, Long>> counts() {
+        Map<String, Long> byChannel = new TreeMap<>();
+        Map<String, Long> byErrorCode = new TreeMap<>();
+
+        countCommands.hgetall(COUNTS_KEY).forEach((field, count) -> {
+            if (count == null || count <= 0) {
+                return;
+            }
+            if (field.startsWith(CHANNEL_PREFIX)) {
+                byChannel.put(field.substring(CHANNEL_PREFIX.length()), count);
+            } else if (field.startsWith(ERROR_PREFIX)) {
+                byErrorCode.put(field.substring(ERROR_PREFIX.length()), count);
+            }
+        });
+
+        return Map.of("byChannel", byChannel, "byErrorCode", byErrorCode);
+    }
+
+    public long size() {
+        return indexCommands.zcard(INDEX_KEY);
+    }
+
+    /**
+     * Removes an entry. Only the caller that actually deleted it gets it back, so concurrent
+     * replays on several pods never replay the same entry twice.
+     *
+     * @return the removed entry, or {@code null} if it was already gone
+     */
+    public DeadLetter take(String id) {
+        DeadLetter entry = entryCommands.hget(ENTRIES_KEY, id);
+        if (entry == null || entryCommands.hdel(ENTRIES_KEY, id) == 0) {
+            return null;
+        }
+        indexCommands.zrem(INDEX_KEY, id);
+        countCommands.hincrby(COUNTS_KEY, CHANNEL_PREFIX + entry.notification().getChannel(), -1);
+        countCommands.hincrby(COUNTS_KEY, ERROR_PREFIX + entry.errorCode(), -1);
+        return entry;
+    }
+
+    private boolean matches(DeadLetter entry, String channel, String errorCode) {
+        return (channel == null || channel.equalsIgnoreCase(String.valueOf(entry.notification().getChannel())))
+                && (errorCode == null || Objects.equals(errorCode, entry.errorCode()));
+    }
+}
@@ -1,56 +1,108 @@
 package bg.sit_varna.sit.si.service.redis;
 
 import bg.sit_varna.sit.si.config.redis.RedisConfig;
-import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.redis.datasource.RedisDataSource;
-import io.quarkus.redis.datasource.keys.KeyCommands;
-import io.quarkus.redis.datasource.value.ValueCommands;
+import io.vertx.mutiny.redis.client.Command;
+import io.vertx.mutiny.redis.client.Redis;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Drops a notification that was already admitted within {@code redis.deduplication.ttl}. Checking and
+ * marking is a single {@code SET key NX EX ttl}, so of two concurrent identical requests exactly one wins.
+ * What counts as identical is decided by {@link NotificationFingerprint}.
+ *
+ * <p>With {@code redis.deduplication.bloom.enabled}, a {@link RotatingBloomFilter} of the fingerprints this
+ * pod admitted sits in front of Redis. Most notifications are not duplicates: when the filter has definitely
+ * not seen one, it is admitted at once and the key is set without waiting for the reply; only a possible hit
+ * waits for Redis to confirm. The filter only knows this pod's traffic, so a duplicate sent to a different pod
+ * within the TTL is admitted. Enable it only with a single replica or with ingest routed by recipient.</p>
+ */
 @ApplicationScoped
 public class DeduplicationService {
 
     private static final Logger LOG = Logger.getLogger(DeduplicationService.class);
 
-    private final ValueCommands<String, String> valueCommands;
-    private final KeyCommands<String> keyCommands;
+    private final Redis redis;
     private final RedisConfig redisConfig;
+    private final NotificationFingerprint fingerprint;
+    private final Clock clock;
+    private final RotatingBloomFilter bloomFilter;
+    private final Counter bloomMisses;
+    private final Counter bloomHits;
+    private final Counter bloomFalsePositives;
 
     @Inject
-    public DeduplicationService(RedisDataSource dataSource, RedisConfig redisConfig) {
-        this.valueCommands = dataSource.value(String.class);
-        this.keyCommands = dataSource.key();
+    public DeduplicationService(RedisDataSource dataSource, RedisConfig redisConfig, Clock clock, MeterRegistry registry) {
+        this.redis = dataSource.getReactive().getRedis();
         this.redisConfig = redisConfig;
+        this.fingerprint = new NotificationFingerprint(redisConfig.deduplication().fields());
+        this.clock = clock;
+
+        RedisConfig.DeduplicationConfig.BloomConfig bloom = redisConfig.deduplication().bloom();
+        this.bloomFilter = bloom.enabled()
+                ? new RotatingBloomFilter(redisConfig.deduplication().ttl().toMillis(), bloom.partitions(),
+                        bloom.expectedInsertions(), bloom.falsePositiveRate(), clock.millis())
+                : null;
+        this.bloomMisses = Counter.builder("notification.dedup.bloom")
+                .description("Deduplication lookups answered by the local Bloom filter (miss: Redis round trip saved)")
+                .tag("result", "miss")
+                .register(registry);
+        this.bloomHits = Counter.builder("notification.dedup.bloom")
+                .description("Deduplication lookups answered by the local Bloom filter (miss: Redis round trip saved)")
+                .tag("result", "hit")
+                .register(registry);
+        this.bloomFalsePositives = Counter.builder("notification.dedup.bloom.false.positives")
+                .description("Bloom filter hits that Redis showed were not duplicates")
+                .register(registry);
     }
 
-    public boolean isDuplicate(String recipient, NotificationChannel channel, String content) {
+    /**
+     * Marks the notification as sent, unless it already was.
+     *
+     * @return {@code true} when an identical notification was admitted within the TTL
+     */
+    public boolean isDuplicate(Notification notification) {
         if (!redisConfig.deduplication().enabled()) {
             return false;
         }
 
-        try {
-            String key = buildDeduplicationKey(recipient, channel, content);
-
-            // Check if key exists (notification was recently sent)
-            String existing = valueCommands.get(key);
+        String hash = fingerprint.of(notification);
+        if (bloomFilter != null) {
+            long now = clock.millis();
+            // Test and put in one step, so only one of two concurrent identical requests takes this path
+            if (!bloomFilter.putIfAbsent(hash1(hash), hash2(hash), now)) {
+                bloomMisses.increment();
+                redis.send(markRequest(hash)).subscribe().with(
+                        reply -> { },
+                        failure -> LOG.warnf("Error marking notification as sent: %s", failure.getMessage()));
+                return false;
+            }
+            bloomHits.increment();
+        }
 
-            if (existing != null) {
-                LOG.warnf("Duplicate notification detected for %s via %s", recipient, channel);
+        try {
+            // SET NX replies with nil when the key already existed
+            if (redis.sendAndAwait(markRequest(hash)) == null) {
+                LOG.warnf("Duplicate notification detected for %s via %s", notification.getRecipient(), notification.getChannel());
                 return true;
             }
 
-            // Not a duplicate - mark as sent
-            valueCommands.set(key, "sent");
-            keyCommands.expire(key, redisConfig.deduplication().ttl());
+            if (bloomFilter != null) {
+                bloomFalsePositives.increment();
+            }
 
-            LOG.debugf("Notification marked as sent: %s via %s", recipient, channel);
+            LOG.debugf("Notification marked as sent: %s via %s", notification.getRecipient(), notification.getChannel());
             return false;
 
         } catch (Exception e) {
@@ -59,20 +111,60 @@ public class DeduplicationService {
         }
     }
 
-    private String buildDeduplicationKey(String recipient, NotificationChannel channel, String content) {
-        String combined = recipient + ":" + channel.name() + ":" + content;
-        String hash = hashContent(combined);
-        return "dedup:" + hash;
-    }
+    /**
+     * Marks many notifications as sent in a single pipelined round trip using SET NX EX.
+     * Because the pipeline is executed in order, a duplicate inside the same batch is detected too.
+     *
+     * @return one flag per notification, in input order; {@code true} when the item is a duplicate
+     */
+    public boolean[] markBatch(List<Notification> notifications) {
+        boolean[] duplicates = new boolean[notifications.size()];
+
+        if (!redisConfig.deduplication().enabled() || notifications.isEmpty()) {
+            return duplicates;
+        }
+
+        // Batches are one round trip anyway; the filter only learns their fingerprints for later single sends
+        long now = clock.millis();
+        List<Request> pipeline = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            String hash = fingerprint.of(notification);
+            if (bloomFilter != null) {
+                bloomFilter.put(hash1(hash), hash2(hash), now);
+            }
+            pipeline.add(markRequest(hash));
+        }
 
-    private String hashContent(String content) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (NoSuchAlgorithmException e) {
-            LOG.error("SHA-256 algorithm not available", e);
-            return String.valueOf(content.hashCode());
+            List<Response> responses = redis.batchAndAwait(pipeline);
+
+            for (int i = 0; i < notifications.size(); i++) {
+                // SET NX replies with nil when the key already existed
+                duplicates[i] = responses.get(i) == null;
+            }
+        } catch (Exception e) {
+            LOG.warnf(e, "Error checking batch deduplication (allowing notifications)");
+            return new boolean[notifications.size()];
         }
+
+        return duplicates;
+    }
+
+    private Request markRequest(String hash) {
+        return Request.cmd(Command.SET)
+                .arg("dedup:" + hash)
+                .arg("sent")
+                .arg("NX")
+                .arg("EX")
+                .arg(redisConfig.deduplication().ttl().toSeconds());
+    }
+
+    // The fingerprint is a SHA-256 in hex, so its first two 64-bit words are independent uniform hashes
+    private static long hash1(String hash) {
+        return Long.parseUnsignedLong(hash.substring(0, 16), 16);
+    }
+
+    private static long hash2(String hash) {
+        return Long.parseUnsignedLong(hash.substring(16, 32), 16);
     }
 }
@@ -0,0 +1,112 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import bg.sit_varna.sit.si.config.redis.RedisConfig;
+import io.quarkus.runtime.ShutdownEvent;
+import io.vertx.mutiny.redis.client.Response;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limiting without a Redis round trip on the ingest path. Checks run against
+ * {@link LocalRateLimitBuckets}; a periodic flush pipelines every pod's unsynced admissions into
+ * per-window Redis counters and pulls the cluster-wide totals back. Only a hot key that reaches its
+ * unsynced allowance is synced inline.
+ */
+@ApplicationScoped
+public class HybridRateLimiter {
+
+    private static final Logger LOG = Logger.getLogger(HybridRateLimiter.class);
+    private static final RedisScript SYNC = RedisScript.load("rate_limit_sync");
+
+    private final RedisScriptExecutor scriptExecutor;
+    private final Clock clock;
+    private final LocalRateLimitBuckets buckets;
+
+    @Inject
+    public HybridRateLimiter(RedisScriptExecutor scriptExecutor, RedisConfig redisConfig, Clock clock) {
+        this.scriptExecutor = scriptExecutor;
+        this.clock = clock;
+        RedisConfig.RateLimitConfig.HybridConfig config = redisConfig.rateLimit().hybrid();
+        this.buckets = new LocalRateLimitBuckets(config.stripes(), config.tolerance());
+    }
+
+    public RateLimitService.Decision check(String key, int limit, Duration window) {
+        long windowMillis = window.toMillis();
+
+        // Second pass only after an inline sync; if another thread used the fresh allowance, reject
+        for (int pass = 0; pass < 2; pass++) {
+            long now = clock.millis();
+            LocalRateLimitBuckets.Result result = buckets.tryConsume(key, limit, windowMillis, now);
+            switch (result.status()) {
+                case ALLOWED -> {
+                    return RateLimitService.Decision.ALLOW;
+                }
+                case DENIED -> {
+                    return new RateLimitService.Decision(false, 0, result.retryAfterMillis());
+                }
+                case SYNC_REQUIRED -> {
+                    try {
+                        sync(buckets.drain(key, now));
+                    } catch (Exception e) {
+                        LOG.errorf(e, "Error syncing rate limit for %s, allowing request (Fail Open)", key);
+                        return RateLimitService.Decision.ALLOW;
+                    }
+                }
+            }
+        }
+        return new RateLimitService.Decision(false, 0, windowMillis - Math.floorMod(clock.millis(), windowMillis));
+    }
+
+    /**
+     * Pushes every unsynced admission to Redis in one pipelined round trip.
+     *
+     * @return number of buckets synced
+     */
+    public int flush() {
+        List<LocalRateLimitBuckets.Pending> pending = buckets.drain(null, clock.millis());
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        sync(pending);
+        return pending.size();
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        try {
+            flush();
+        } catch (Exception e) {
+            LOG.warn("Final rate limit flush failed", e);
+        }
+    }
+
+    private void sync(List<LocalRateLimitBuckets.Pending> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<RedisScriptExecutor.Invocation> invocations = new ArrayList<>(pending.size());
+        for (LocalRateLimitBuckets.Pending entry : pending) {
+            invocations.add(new RedisScriptExecutor.Invocation(
+                    List.of(entry.key() + ":" + entry.window()),
+                    List.of(String.valueOf(entry.delta()), String.valueOf(entry.windowMillis() * 2))));
+        }
+
+        List<Response> totals;
+        try {
+            totals = scriptExecutor.executeBatch(SYNC, invocations);
+        } catch (Exception e) {
+            pending.forEach(buckets::failed);
+            throw e;
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            buckets.synced(pending.get(i), totals.get(i).toLong());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory side of the hybrid rate limiter: one bucket per recipient and channel, spread over lock stripes
+ * so that unrelated recipients never contend.
+ *
+ * <p>A bucket knows the cluster-wide count of its fixed window as of the last sync, plus what this pod has
+ * admitted since. Requests are admitted locally while the sum stays below the limit. Unsynced admissions
+ * are capped at {@code tolerance} of the limit (at least one); at the cap the caller has to sync the key
+ * before admitting more. Between two syncs a pod can therefore overshoot by at most that cap, and the
+ * cluster by the cap times the number of pods.</p>
+ *
+ * <p>Not tied to Redis: {@link #drain} hands out the unsynced counts and {@link #synced} / {@link #failed}
+ * report the outcome, so counts are never flushed twice or lost on a failed flush.</p>
+ */
+public class LocalRateLimitBuckets {
+
+    public enum Status { ALLOWED, DENIED, SYNC_REQUIRED }
+
+    private final Stripe[] stripes;
+    private final double tolerance;
+
+    public LocalRateLimitBuckets(int stripes, double tolerance) {
+        if (stripes < 1 || tolerance < 0) {
+            throw new IllegalArgumentException("stripes must be positive and tolerance not negative");
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @return the status and, when denied, how long until the window ends
+     */
+    public Result tryConsume(String key, int limit, long windowMillis, long now) {
+        long window = Math.floorDiv(now, windowMillis);
+        Stripe stripe = stripeFor(key);
+
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null || bucket.window < window) {
+                bucket = new Bucket(window, windowMillis);
+                stripe.buckets.put(key, bucket);
+            }
+
+            if (bucket.global + bucket.inFlight + bucket.pending >= limit) {
+                return new Result(Status.DENIED, (window + 1) * windowMillis - now);
+            }
+            if (bucket.pending >= maxPending(limit)) {
+                return new Result(Status.SYNC_REQUIRED, 0);
+            }
+            bucket.pending++;
+            return new Result(Status.ALLOWED, 0);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the unsynced counts of every bucket (or of {@code onlyKey}, if given) for a flush, and forgets
+     * buckets whose window is over and that have nothing left to flush.
+     */
+    public List<Pending> drain(String onlyKey, long now) {
+        List<Pending> drained = new ArrayList<>();
+        if (onlyKey != null) {
+            drainStripe(stripeFor(onlyKey), onlyKey, now, drained);
+        } else {
+            for (Stripe stripe : stripes) {
+                drainStripe(stripe, null, now, drained);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * The flush of {@code pending} went through and Redis now counts {@code total} for its window.
+     */
+    public void synced(Pending pending, long total) {
+        update(pending, bucket -> {
+            bucket.inFlight -= pending.delta();
+            bucket.global = Math.max(bucket.global, total - bucket.inFlight);
+        });
+    }
+
+    /**
+     * The flush of {@code pending} failed; its count goes back to be flushed next time.
+     */
+    public void failed(Pending pending) {
+        update(pending, bucket -> {
+            bucket.inFlight -= pending.delta();
+            bucket.pending += pending.delta();
+        });
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private void drainStripe(Stripe stripe, String onlyKey, long now, List<Pending> drained) {
+        stripe.lock.lock();
+        try {
+            Iterator<Map.Entry<String, Bucket>> iterator = stripe.buckets.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Bucket> entry = iterator.next();
+                if (onlyKey != null && !onlyKey.equals(entry.getKey())) {
+                    continue;
+                }
+                Bucket bucket = entry.getValue();
+                if (bucket.pending > 0) {
+                    drained.add(new Pending(entry.getKey(), bucket.window, bucket.windowMillis, bucket.pending));
+                    bucket.inFlight += bucket.pending;
+                    bucket.pending = 0;
+                } else if (bucket.inFlight == 0 && bucket.window < Math.floorDiv(now, bucket.windowMillis)) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void update(Pending pending, Consumer<Bucket> change) {
+        Stripe stripe = stripeFor(pending.key());
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(pending.key());
+            // A newer window replaced the bucket; the old window's outcome no longer matters
+            if (bucket != null && bucket.window == pending.window()) {
+                change.accept(bucket);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private int maxPending(int limit) {
+        return Math.max(1, (int) (limit * tolerance));
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    public record Result(Status status, long retryAfterMillis) {
+    }
+
+    /**
+     * Admissions of one bucket not yet counted in Redis.
+     */
+    public record Pending(String key, long window, long windowMillis, int delta) {
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        private final long window;
+        private final long windowMillis;
+        /** Cluster-wide count for the window as of the last sync, excluding what is in flight. */
+        private long global;
+        /** Sent to Redis, not yet acknowledged. */
+        private int inFlight;
+        /** Admitted here since the last drain. */
+        private int pending;
+
+        Bucket(long window, long windowMillis) {
+            this.window = window;
+            this.windowMillis = windowMillis;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import bg.sit_varna.sit.si.dto.model.Notification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Identifies "the same notification" for deduplication: a SHA-256 over channel, recipient, template name
+ * (or the plain message), locale and the template data in canonical form (map keys sorted at every level),
+ * so two OTPs with different codes never collide while a resent identical request does.
+ *
+ * <p>Fields that change on every request without changing the message (request ids, timestamps) can be
+ * left out per template by listing only the fields that matter.</p>
+ */
+public class NotificationFingerprint {
+
+    private static final ObjectMapper CANONICAL = JsonMapper.builder()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .build();
+
+    private final Map<String, Set<String>> fieldsByTemplate = new LinkedHashMap<>();
+
+    /**
+     * @param fieldsByTemplate data fields to include per template name; templates not listed use all fields
+     */
+    public NotificationFingerprint(Map<String, List<String>> fieldsByTemplate) {
+        fieldsByTemplate.forEach((template, fields) -> this.fieldsByTemplate.put(template, Set.copyOf(fields)));
+    }
+
+    public String of(Notification notification) {
+        MessageDigest digest = sha256();
+        update(digest, notification.getChannel().name());
+        update(digest, notification.getRecipient());
+        update(digest, notification.usesTemplate() ? "template:" + notification.getTemplateName() : "text:" + notification.getMessage());
+        update(digest, notification.getLocale());
+        update(digest, canonicalData(notification));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private String canonicalData(Notification notification) {
+        Map<String, Object> data = notification.getData();
+        Set<String> fields = notification.usesTemplate() ? fieldsByTemplate.get(notification.getTemplateName()) : null;
+        if (fields != null) {
+            Map<String, Object> selected = new LinkedHashMap<>();
+            data.forEach((name, value) -> {
+                if (fields.contains(name)) {
+                    selected.put(name, value);
+                }
+            });
+            data = selected;
+        }
+
+        try {
+            return CANONICAL.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            // Not serializable as JSON; fall back to the string form, which is still stable for equal data
+            return String.valueOf(data);
+        }
+    }
+
+    /**
+     * Length-prefixed, so that moving characters between parts always changes the hash.
+     */
+    private static void update(MessageDigest digest, String part) {
+        byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+        digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+}
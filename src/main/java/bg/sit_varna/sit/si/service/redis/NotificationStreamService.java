@@ -0,0 +1,156 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.config.app.TenantConfig;
+import bg.sit_varna.sit.si.constant.NotificationPriority;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.stream.ClaimedMessages;
+import io.quarkus.redis.datasource.stream.StreamCommands;
+import io.quarkus.redis.datasource.stream.StreamMessage;
+import io.quarkus.redis.datasource.stream.XGroupCreateArgs;
+import io.quarkus.redis.datasource.stream.XReadGroupArgs;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Durable notification queue backed by Redis Streams and a single consumer group.
+ * Entries stay in the group's pending list until acknowledged, so a message read by a pod
+ * that dies before finishing is picked up again by {@link #claimStale}.
+ *
+ * <p>With tenants enabled every configured product gets its own stream per lane, so one product's
+ * backlog is never read ahead of another product's work. The default tenant, and anything unknown,
+ * stays on the lane's base stream.</p>
+ */
+@ApplicationScoped
+public class NotificationStreamService {
+
+    private static final Logger LOG = Logger.getLogger(NotificationStreamService.class);
+    private static final String PAYLOAD_FIELD = "notification";
+    private static final String NEW_MESSAGES = ">";
+    private static final String PRIORITY_SUFFIX = ":priority";
+    private static final String TENANT_SUFFIX = ":tenant:";
+
+    private final StreamCommands<String, String, Notification> streamCommands;
+    private final QueueConfig.StreamConfig config;
+    private final Set<String> tenants;
+
+    @Inject
+    public NotificationStreamService(RedisDataSource dataSource, QueueConfig queueConfig, TenantConfig tenantConfig) {
+        this.streamCommands = dataSource.stream(String.class, String.class, Notification.class);
+        this.config = queueConfig.stream();
+
+        Set<String> named = new TreeSet<>();
+        if (tenantConfig.enabled()) {
+            named.addAll(tenantConfig.products().keySet());
+            named.remove(tenantConfig.defaultTenant());
+        }
+        this.tenants = Collections.unmodifiableSet(named);
+    }
+
+    /**
+     * Each priority lane is a separate stream sharing the same consumer group name.
+     */
+    public String streamKey(NotificationPriority priority) {
+        return priority == NotificationPriority.HIGH ? config.key() + PRIORITY_SUFFIX : config.key();
+    }
+
+    public String streamKey(NotificationPriority priority, String tenant) {
+        return tenant != null && tenants.contains(tenant)
+                ? streamKey(priority) + TENANT_SUFFIX + tenant
+                : streamKey(priority);
+    }
+
+    /**
+     * The lane's base stream followed by one stream per configured tenant.
+     */
+    public List<String> streamKeys(NotificationPriority priority) {
+        List<String> keys = new ArrayList<>();
+        keys.add(streamKey(priority));
+        for (String tenant : tenants) {
+            keys.add(streamKey(priority, tenant));
+        }
+        return keys;
+    }
+
+    /**
+     * Creates the lane's streams and the consumer group on each if they do not exist yet.
+     */
+    public void ensureGroup(NotificationPriority priority) {
+        for (String key : streamKeys(priority)) {
+            try {
+                streamCommands.xgroupCreate(key, config.group(), "0", new XGroupCreateArgs().mkstream());
+                LOG.infof("Created consumer group '%s' on stream '%s'", config.group(), key);
+            } catch (Exception e) {
+                if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public String publish(NotificationPriority priority, Notification notification) {
+        return streamCommands.xadd(streamKey(priority, notification.getTenant()), Map.of(PAYLOAD_FIELD, notification));
+    }
+
+    /**
+     * Blocks for up to the configured timeout waiting for messages not yet delivered to any consumer,
+     * reading all of the lane's streams at once.
+     *
+     * @param countPerStream taken from each stream at most, so a read can return that many times the stream count
+     */
+    public List<StreamMessage<String, String, Notification>> read(NotificationPriority priority, String consumer,
+                                                                   int countPerStream) {
+        Map<String, String> lastIds = new LinkedHashMap<>();
+        for (String key : streamKeys(priority)) {
+            lastIds.put(key, NEW_MESSAGES);
+        }
+        return streamCommands.xreadgroup(config.group(), consumer, lastIds,
+                new XReadGroupArgs().count(countPerStream).block(config.blockTimeout()));
+    }
+
+    /**
+     * Transfers messages that have been pending longer than the claim idle time to this consumer.
+     *
+     * @param key   one of the lane's {@link #streamKeys}
+     * @param start stream id to resume scanning from, {@code "0-0"} for a full pass
+     */
+    public ClaimedMessages<String, String, Notification> claimStale(String key, String consumer, String start, int count) {
+        return streamCommands.xautoclaim(key, config.group(), consumer, config.claimIdle(), start, count);
+    }
+
+    /**
+     * Acknowledges a processed message and removes it from its stream, keeping the stream bounded
+     * by the amount of outstanding work.
+     */
+    public void acknowledge(StreamMessage<String, String, Notification> message) {
+        streamCommands.xack(message.key(), config.group(), message.id());
+        streamCommands.xdel(message.key(), message.id());
+    }
+
+    public Notification payload(StreamMessage<String, String, Notification> message) {
+        return message.payload().get(PAYLOAD_FIELD);
+    }
+
+    /**
+     * Total entries across all lanes and tenants.
+     */
+    public long length() {
+        long total = 0;
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            for (String key : streamKeys(priority)) {
+                total += streamCommands.xlen(key);
+            }
+        }
+        return total;
+    }
+}
@@ -2,83 +2,204 @@ package bg.sit_varna.sit.si.service.redis;
 
 import bg.sit_varna.sit.si.config.redis.RedisConfig;
 import bg.sit_varna.sit.si.constant.NotificationChannel;
-import io.quarkus.redis.datasource.RedisDataSource;
-import io.quarkus.redis.datasource.keys.KeyCommands;
-import io.quarkus.redis.datasource.value.ValueCommands;
+import bg.sit_varna.sit.si.constant.RateLimitAlgorithm;
+import bg.sit_varna.sit.si.constant.RateLimitMode;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import io.vertx.mutiny.redis.client.Response;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.time.Clock;
 import java.time.Duration;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-recipient rate limits. Each check is one call of {@code rate_limit.lua}, which reads, updates and
+ * expires the limiter state atomically and reports how long the caller has to wait, so a rejection needs
+ * no second lookup. The algorithm is chosen per channel ({@code redis.rate-limit.<channel>-algorithm}).
+ * The script reads the time from the Redis server, so windows and the reported wait do not depend on
+ * the clock of the pod that asked.
+ *
+ * <p>In {@code hybrid} mode checks go to the {@link HybridRateLimiter} instead, which counts fixed windows
+ * locally and syncs with Redis in the background, trading exactness for no round trip per request.</p>
+ */
 @ApplicationScoped
 public class RateLimitService {
 
     private static final Logger LOG = Logger.getLogger(RateLimitService.class);
+    private static final RedisScript RATE_LIMIT = RedisScript.load("rate_limit");
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+    private static final long MINUTE_MILLIS = Duration.ofMinutes(1).toMillis();
 
-    private final ValueCommands<String, Long> valueCommands;
-    private final KeyCommands<String> keyCommands;
+    private final RedisScriptExecutor scriptExecutor;
     private final RedisConfig redisConfig;
+    private final HybridRateLimiter hybridRateLimiter;
+    private final Clock clock;
 
     @Inject
-    public RateLimitService(RedisDataSource dataSource,
-                            RedisConfig redisConfig) {
-        this.valueCommands = dataSource.value(Long.class);
-        this.keyCommands = dataSource.key();
+    public RateLimitService(RedisScriptExecutor scriptExecutor,
+                            RedisConfig redisConfig,
+                            HybridRateLimiter hybridRateLimiter,
+                            Clock clock) {
+        this.scriptExecutor = scriptExecutor;
         this.redisConfig = redisConfig;
+        this.hybridRateLimiter = hybridRateLimiter;
+        this.clock = clock;
     }
 
     public boolean isAllowed(String recipient, NotificationChannel channel) {
+        return check(recipient, channel).allowed();
+    }
+
+    /**
+     * Checks and records one request in a single round trip.
+     */
+    public Decision check(String recipient, NotificationChannel channel) {
         if (!redisConfig.rateLimit().enabled()) {
-            return true;
+            return Decision.ALLOW;
         }
 
-        String key = buildRateLimitKey(recipient, channel);
-
         try {
-            long currentCount = valueCommands.incr(key);
+            Decision decision = isHybrid()
+                    ? hybridRateLimiter.check(buildHybridKey(recipient, channel), getMaxRequests(channel), getWindow(channel))
+                    : toDecision(scriptExecutor.execute(RATE_LIMIT,
+                            List.of(buildRateLimitKey(recipient, channel)), arguments(channel)));
+
+            if (!decision.allowed()) {
+                LOG.warnf("Rate limit exceeded for %s:%s - %d requests per %s (%s)",
+                        channel, recipient, getMaxRequests(channel), getWindow(channel), getAlgorithm(channel).getValue());
+            }
+            return decision;
 
-            int maxRequests = getMaxRequests(channel);
-            Duration window = getWindow(channel);
+        } catch (Exception e) {
+            LOG.errorf(e, "Error checking rate limit, allowing request (Fail Open)");
+            return Decision.ALLOW;
+        }
+    }
 
-            // If this is the very first request (counter became 1), we start the timer.
-            if (currentCount == 1) {
-                keyCommands.expire(key, window);
-                LOG.debugf("Rate limit initialized for %s:%s", channel, recipient);
-            }
+    /**
+     * Checks the rate limit for many notifications in a single pipelined round trip of script calls.
+     *
+     * @return one flag per notification, in input order; {@code true} when the item is allowed
+     */
+    public boolean[] checkBatch(List<Notification> notifications) {
+        boolean[] allowed = new boolean[notifications.size()];
+        Arrays.fill(allowed, true);
+
+        if (!redisConfig.rateLimit().enabled() || notifications.isEmpty()) {
+            return allowed;
+        }
 
-            // If the atomic increment pushed us over the limit, we reject.
-            if (currentCount > maxRequests) {
-                LOG.warnf("Rate limit exceeded for %s:%s - %d/%d requests",
-                        channel, recipient, currentCount, maxRequests);
-                return false;
+        if (isHybrid()) {
+            // Local checks; only keys at their unsynced allowance touch Redis
+            for (int i = 0; i < notifications.size(); i++) {
+                allowed[i] = check(notifications.get(i).getRecipient(), notifications.get(i).getChannel()).allowed();
             }
+            return allowed;
+        }
 
-            return true;
+        List<RedisScriptExecutor.Invocation> invocations = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            invocations.add(new RedisScriptExecutor.Invocation(
+                    List.of(buildRateLimitKey(notification.getRecipient(), notification.getChannel())),
+                    arguments(notification.getChannel())));
+        }
 
+        try {
+            List<Response> responses = scriptExecutor.executeBatch(RATE_LIMIT, invocations);
+
+            for (int i = 0; i < notifications.size(); i++) {
+                if (!toDecision(responses.get(i)).allowed()) {
+                    LOG.debugf("Rate limit exceeded for %s:%s in batch",
+                            notifications.get(i).getChannel(), notifications.get(i).getRecipient());
+                    allowed[i] = false;
+                }
+            }
         } catch (Exception e) {
-            LOG.errorf(e, "Error checking rate limit, allowing request (Fail Open)");
-            return true;
+            LOG.errorf(e, "Error checking batch rate limit, allowing requests (Fail Open)");
+            Arrays.fill(allowed, true);
         }
+
+        return allowed;
     }
 
-    public long getResetTime(String recipient, NotificationChannel channel) {
-        if (!redisConfig.rateLimit().enabled()) {
-            return 0;
+    /**
+     * Counts one notification per quota against its tenant's daily quota (UTC days, fixed window) and
+     * per-minute rate (sliding window), all in one pipelined round trip. Unlike the recipient limits this
+     * is not switched by {@code redis.rate-limit.enabled}; callers decide whether tenants are enforced.
+     *
+     * @return one decision per quota, in input order; denied if either limit is used up
+     */
+    public List<Decision> checkQuota(List<TenantQuota> quotas) {
+        List<Decision> decisions = new ArrayList<>(quotas.size());
+        if (quotas.isEmpty()) {
+            return decisions;
+        }
+
+        // Only names the daily key and bounds its expiry; the counting itself runs on server time
+        long now = clock.millis();
+        long day = Math.floorDiv(now, DAY_MILLIS);
+        // The daily key expires at midnight, so the reported wait is the time until the quota resets
+        long untilMidnight = (day + 1) * DAY_MILLIS - now;
+
+        List<RedisScriptExecutor.Invocation> invocations = new ArrayList<>(quotas.size() * 2);
+        for (TenantQuota quota : quotas) {
+            String prefix = "rate-limit:tenant:" + quota.tenant();
+            invocations.add(new RedisScriptExecutor.Invocation(List.of(prefix + ":daily:" + day), List.of(
+                    RateLimitAlgorithm.FIXED_WINDOW.getValue(), String.valueOf(quota.dailyQuota()),
+                    String.valueOf(untilMidnight), "")));
+            invocations.add(new RedisScriptExecutor.Invocation(List.of(prefix + ":minute"), List.of(
+                    RateLimitAlgorithm.SLIDING_WINDOW.getValue(), String.valueOf(quota.perMinute()),
+                    String.valueOf(MINUTE_MILLIS), "")));
         }
 
-        String key = buildRateLimitKey(recipient, channel);
         try {
-            long ttl = keyCommands.ttl(key);
-            return ttl > 0 ? ttl : 0;
+            List<Response> responses = scriptExecutor.executeBatch(RATE_LIMIT, invocations);
+            for (int i = 0; i < quotas.size(); i++) {
+                Decision daily = toDecision(responses.get(2 * i));
+                Decision perMinute = toDecision(responses.get(2 * i + 1));
+                decisions.add(daily.allowed() && perMinute.allowed()
+                        ? new Decision(true, Math.min(daily.remaining(), perMinute.remaining()), 0)
+                        : new Decision(false, 0, Math.max(daily.retryAfterMillis(), perMinute.retryAfterMillis())));
+            }
         } catch (Exception e) {
-            LOG.errorf(e, "Error getting reset time");
-            return 0;
+            LOG.errorf(e, "Error checking tenant quotas, allowing requests (Fail Open)");
+            decisions.clear();
+            quotas.forEach(quota -> decisions.add(Decision.ALLOW));
         }
+        return decisions;
+    }
+
+    private List<String> arguments(NotificationChannel channel) {
+        return List.of(
+                getAlgorithm(channel).getValue(),
+                String.valueOf(getMaxRequests(channel)),
+                String.valueOf(getWindow(channel).toMillis()),
+                // Sliding-log member; must be unique even for requests in the same millisecond
+                UUID.randomUUID().toString()
+        );
+    }
+
+    private static Decision toDecision(Response response) {
+        return new Decision(response.get(0).toInteger() == 1, response.get(1).toLong(), response.get(2).toLong());
     }
 
     private String buildRateLimitKey(String recipient, NotificationChannel channel) {
-        return String.format("rate-limit:%s:%s", channel.name().toLowerCase(), recipient);
+        // The algorithm is part of the key, since each one keeps a different Redis type
+        return String.format("rate-limit:%s:%s:%s",
+                channel.name().toLowerCase(), getAlgorithm(channel).getValue(), recipient);
+    }
+
+    private String buildHybridKey(String recipient, NotificationChannel channel) {
+        return String.format("rate-limit:hybrid:%s:%s", channel.name().toLowerCase(), recipient);
+    }
+
+    private boolean isHybrid() {
+        return redisConfig.rateLimit().mode() == RateLimitMode.HYBRID;
     }
 
     private int getMaxRequests(NotificationChannel channel) {
@@ -96,4 +217,34 @@ public class RateLimitService {
             case TELEGRAM -> redisConfig.rateLimit().telegramWindow();
         };
     }
+
+    private RateLimitAlgorithm getAlgorithm(NotificationChannel channel) {
+        return switch (channel) {
+            case EMAIL -> redisConfig.rateLimit().emailAlgorithm();
+            case SMS -> redisConfig.rateLimit().smsAlgorithm();
+            case TELEGRAM -> redisConfig.rateLimit().telegramAlgorithm();
+        };
+    }
+
+    /**
+     * Limits of the tenant that submitted one notification.
+     */
+    public record TenantQuota(String tenant, int dailyQuota, int perMinute) {
+    }
+
+    /**
+     * @param remaining        requests still allowed right now
+     * @param retryAfterMillis wait before the next request would be allowed, {@code 0} when allowed
+     */
+    public record Decision(boolean allowed, long remaining, long retryAfterMillis) {
+
+        static final Decision ALLOW = new Decision(true, Long.MAX_VALUE, 0);
+
+        /**
+         * Seconds to report in {@code Retry-After}, rounded up so clients never retry too early.
+         */
+        public long getResetTime() {
+            return (retryAfterMillis + 999) / 1000;
+        }
+    }
 }
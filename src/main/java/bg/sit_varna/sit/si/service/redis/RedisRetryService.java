@@ -1,52 +1,245 @@
 package bg.sit_varna.sit.si.service.redis;
 
+import bg.sit_varna.sit.si.config.redis.RedisConfig;
+import bg.sit_varna.sit.si.constant.RetryStorage;
 import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.entity.NotificationRecord;
+import bg.sit_varna.sit.si.mapper.NotificationMapper;
+import bg.sit_varna.sit.si.repository.NotificationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.quarkus.redis.datasource.RedisDataSource;
-import io.quarkus.redis.datasource.sortedset.ScoreRange;
+import io.quarkus.redis.datasource.hash.HashCommands;
+import io.quarkus.redis.datasource.pubsub.PubSubCommands;
 import io.quarkus.redis.datasource.sortedset.SortedSetCommands;
+import io.vertx.mutiny.redis.client.Response;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
 import org.jboss.logging.Logger;
 
 import java.time.Clock;
-import java.time.Instant;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Cold retry queue: a sorted set of notifications scored by the epoch millisecond they become due.
+ *
+ * <p>With {@code redis.retry.storage=reference} the members are bare notification ids and the retry state
+ * (attempt and last delay) sits in a small hash next to it; the content is reloaded from the notification's
+ * database record when the retry is due. A queued retry then costs a few dozen bytes instead of the whole
+ * serialized notification, and rescheduling an id moves its entry instead of adding a second one.
+ * The claim understands both member formats, so the mode can be switched with entries still queued.</p>
+ *
+ * <p>The consumer does not poll. After each claim it sleeps until the earliest remaining score and is
+ * woken early when something due sooner is added, locally or, through a pub/sub message, by another replica.</p>
+ */
 @ApplicationScoped
 public class RedisRetryService {
 
     private static final Logger LOG = Logger.getLogger(RedisRetryService.class);
     private static final String RETRY_KEY = "notifications:retry_queue";
+    private static final String STATE_KEY = "notifications:retry_queue:state";
+    private static final String WAKEUP_CHANNEL = "notifications:retry_queue:wakeup";
+    private static final RedisScript CLAIM_DUE = RedisScript.load("claim_due");
+
     @Inject Clock clock;
+    @Inject ObjectMapper objectMapper;
+    @Inject RedisScriptExecutor scriptExecutor;
+    @Inject NotificationRepository notificationRepository;
+    @Inject NotificationMapper notificationMapper;
+    private final RetryStorage storage;
     private final SortedSetCommands<String, Notification> zsetCommands;
+    private final SortedSetCommands<String, String> idCommands;
+    private final HashCommands<String, String, String> stateCommands;
+    private final PubSubCommands<String> pubSubCommands;
+
+    private final Semaphore wakeup = new Semaphore(0);
+    /** When the consumer intends to look again; only earlier retries need to wake it. */
+    private volatile long nextWakeAt = Long.MAX_VALUE;
 
     @Inject
-    public RedisRetryService(RedisDataSource dataSource) {
+    public RedisRetryService(RedisDataSource dataSource, RedisConfig redisConfig) {
+        this.storage = redisConfig.retry().storage();
         this.zsetCommands = dataSource.sortedSet(String.class, Notification.class);
+        this.idCommands = dataSource.sortedSet(String.class, String.class);
+        this.stateCommands = dataSource.hash(String.class, String.class, String.class);
+        this.pubSubCommands = dataSource.pubsub(String.class);
     }
 
     public void scheduleRetry(Notification notification, long delaySeconds) {
-        long executeAt = Instant.now(clock).getEpochSecond() + delaySeconds;
+        scheduleRetry(notification, Duration.ofSeconds(delaySeconds));
+    }
+
+    public void scheduleRetry(Notification notification, Duration delay) {
+        long executeAt = clock.millis() + delay.toMillis();
+
+        if (storage == RetryStorage.REFERENCE) {
+            // State first, so a claim never finds the id without it
+            stateCommands.hset(STATE_KEY, notification.getId(),
+                    notification.getRetryAttempt() + ":" + notification.getLastRetryDelay());
+            idCommands.zadd(RETRY_KEY, executeAt, notification.getId());
+        } else {
+            zsetCommands.zadd(RETRY_KEY, executeAt, notification);
+        }
 
-        zsetCommands.zadd(RETRY_KEY, executeAt, notification);
+        if (executeAt < nextWakeAt) {
+            wakeup.release();
+            pubSubCommands.publish(WAKEUP_CHANNEL, Long.toString(executeAt));
+        }
 
-        LOG.infof("Scheduled retry for %s in %d seconds (Redis ZSET)",
-                notification.getRecipient(), delaySeconds);
+        LOG.infof("Scheduled retry for %s in %d ms (Redis ZSET)",
+                notification.getRecipient(), delay.toMillis());
     }
 
-    public List<Notification> fetchDueNotifications() {
-        long now = Instant.now(clock).getEpochSecond();
+    /**
+     * Atomically removes and returns up to {@code limit} retries that are due now.
+     * The range read and the removal run in one Lua script, so when several replicas poll
+     * at the same time every due entry is handed to exactly one of them.
+     *
+     * <p>If rebuilding the referenced entries from the database fails, the whole claim is put back as due
+     * before the failure is rethrown, since the script has already removed it from Redis.</p>
+     */
+    public RetryClaim claimDue(int limit) {
+        long now = clock.millis();
 
-        // Get everything due up to this exact second
-        List<Notification> due = zsetCommands.zrangebyscore(RETRY_KEY, ScoreRange.from(Double.NEGATIVE_INFINITY, now));
+        Response claimed = scriptExecutor.execute(CLAIM_DUE, List.of(RETRY_KEY, STATE_KEY),
+                List.of(String.valueOf(now), String.valueOf(limit)));
 
-        if (!due.isEmpty()) {
-            // Remove them from Redis so we don't process them twice
-            for (Notification n : due) {
-                zsetCommands.zrem(RETRY_KEY, n);
+        Response members = claimed.get(0);
+        Response states = claimed.get(1);
+        List<Notification> due = new ArrayList<>(members.size());
+        Map<String, String> references = new HashMap<>();
+        for (int i = 0; i < members.size(); i++) {
+            String member = members.get(i).toString();
+            if (member.startsWith("{")) {
+                decodePayload(member, due);
+            } else {
+                Response state = states.get(i);
+                references.put(member, state != null ? state.toString() : null);
             }
         }
+        if (!references.isEmpty()) {
+            try {
+                due.addAll(rebuild(references));
+            } catch (RuntimeException e) {
+                restore(due, references, now);
+                throw e;
+            }
+        }
+
+        Response head = claimed.size() > 2 ? claimed.get(2) : null;
+        long nextDueAt = head != null ? (long) Double.parseDouble(head.toString()) : Long.MAX_VALUE;
+        return new RetryClaim(due, nextDueAt);
+    }
+
+    /**
+     * Reloads referenced retries from their records and restores the retry state kept in Redis.
+     */
+    @Transactional
+    protected List<Notification> rebuild(Map<String, String> references) {
+        Map<String, NotificationRecord> records = new HashMap<>();
+        for (NotificationRecord record : notificationRepository.findByIds(references.keySet())) {
+            records.put(record.getId(), record);
+        }
+
+        List<Notification> rebuilt = new ArrayList<>(references.size());
+        for (Map.Entry<String, String> reference : references.entrySet()) {
+            NotificationRecord record = records.get(reference.getKey());
+            if (record == null) {
+                // Already removed from Redis and nothing left to rebuild it from
+                LOG.errorf("Dropping retry for %s: notification record not found", reference.getKey());
+                continue;
+            }
+
+            int attempt = 0;
+            long lastDelay = 0;
+            String state = reference.getValue();
+            if (state != null) {
+                int separator = state.indexOf(':');
+                attempt = Integer.parseInt(state.substring(0, separator));
+                lastDelay = Long.parseLong(state.substring(separator + 1));
+            }
+            rebuilt.add(notificationMapper.toDomain(record).withRetryState(attempt, lastDelay));
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Puts a claim that could not be handed off back into the queue, due at {@code dueAt}.
+     */
+    private void restore(List<Notification> payloads, Map<String, String> references, long dueAt) {
+        Map<String, String> states = new HashMap<>();
+        Map<String, Double> ids = new HashMap<>();
+        references.forEach((id, state) -> {
+            if (state != null) {
+                states.put(id, state);
+            }
+            ids.put(id, (double) dueAt);
+        });
+
+        try {
+            // State first, as in scheduleRetry
+            if (!states.isEmpty()) {
+                stateCommands.hset(STATE_KEY, states);
+            }
+            idCommands.zadd(RETRY_KEY, ids);
+            for (Notification notification : payloads) {
+                zsetCommands.zadd(RETRY_KEY, dueAt, notification);
+            }
+            LOG.warnf("Rebuilding %d claimed retries failed; put the claim back", references.size());
+        } catch (RuntimeException e) {
+            LOG.errorf(e, "Could not put back %d claimed retries %s", references.size() + payloads.size(),
+                    references.keySet());
+        }
+    }
+
+    private void decodePayload(String member, List<Notification> due) {
+        try {
+            due.add(objectMapper.readValue(member, Notification.class));
+        } catch (JsonProcessingException e) {
+            // Already removed from Redis; a corrupt entry must not block the rest of the batch
+            LOG.errorf(e, "Dropping unreadable retry entry");
+        }
+    }
+
+    /**
+     * Subscribes to wake-ups published by other replicas. The returned handle unsubscribes.
+     */
+    public PubSubCommands.RedisSubscriber subscribeWakeups() {
+        return pubSubCommands.subscribe(WAKEUP_CHANNEL, message -> {
+            // Runs on the Redis event loop; only signal, never block here
+            if (Long.parseLong(message) < nextWakeAt) {
+                wakeup.release();
+            }
+        });
+    }
+
+    /**
+     * Blocks until {@code nextDueAt}, at most {@code maxWait}, or until a sooner retry is scheduled.
+     */
+    public void awaitDue(long nextDueAt, Duration maxWait) throws InterruptedException {
+        long now = clock.millis();
+        nextWakeAt = Math.min(nextDueAt, now + maxWait.toMillis());
+
+        long waitMillis = nextWakeAt - now;
+        if (waitMillis > 0) {
+            wakeup.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // Awake: any retry added from here on must leave a permit, so the next wait returns at once
+        nextWakeAt = Long.MAX_VALUE;
+        wakeup.drainPermits();
+    }
 
-        return due;
+    /**
+     * @param nextDueAt epoch millis of the earliest retry left in the queue, {@link Long#MAX_VALUE} if it is empty
+     */
+    public record RetryClaim(List<Notification> due, long nextDueAt) {
     }
 }
@@ -0,0 +1,40 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A Lua script together with the SHA1 digest Redis caches it under.
+ */
+public record RedisScript(String name, String source, String sha) {
+
+    /**
+     * Loads {@code redis/<name>.lua} from the classpath.
+     */
+    public static RedisScript load(String name) {
+        String path = "redis/" + name + ".lua";
+        try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Redis script not found on classpath: " + path);
+            }
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return new RedisScript(name, source, sha1(source));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read Redis script " + path, e);
+        }
+    }
+
+    private static String sha1(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.vertx.mutiny.redis.client.Command;
+import io.vertx.mutiny.redis.client.Redis;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs Lua scripts with EVALSHA, so only the digest travels on every call. When Redis does not know
+ * the script yet (fresh server, failover, SCRIPT FLUSH) it falls back to EVAL once, which also caches it.
+ * Many invocations of one script can be pipelined in a single round trip with {@link #executeBatch}.
+ */
+@ApplicationScoped
+public class RedisScriptExecutor {
+
+    private static final Logger LOG = Logger.getLogger(RedisScriptExecutor.class);
+    private static final String NO_SCRIPT = "NOSCRIPT";
+
+    private final RedisDataSource dataSource;
+
+    @Inject
+    public RedisScriptExecutor(RedisDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public Response execute(RedisScript script, List<String> keys, List<String> args) {
+        try {
+            return dataSource.execute(Command.EVALSHA, arguments(script.sha(), keys, args));
+        } catch (Exception e) {
+            if (e.getMessage() == null || !e.getMessage().contains(NO_SCRIPT)) {
+                throw e;
+            }
+            LOG.debugf("Script '%s' not cached by Redis, sending source", script.name());
+            return dataSource.execute(Command.EVAL, arguments(script.source(), keys, args));
+        }
+    }
+
+    /**
+     * Pipelines one EVALSHA per invocation. On NOSCRIPT the script is loaded and the batch sent once more;
+     * every EVALSHA of an unknown script fails, so nothing from the first attempt has run.
+     *
+     * @return one response per invocation, in input order
+     */
+    public List<Response> executeBatch(RedisScript script, List<Invocation> invocations) {
+        Redis redis = dataSource.getReactive().getRedis();
+        try {
+            return redis.batchAndAwait(requests(script, invocations));
+        } catch (Exception e) {
+            if (e.getMessage() == null || !e.getMessage().contains(NO_SCRIPT)) {
+                throw e;
+            }
+            LOG.debugf("Script '%s' not cached by Redis, loading it before the batch", script.name());
+            dataSource.execute(Command.SCRIPT, "LOAD", script.source());
+            return redis.batchAndAwait(requests(script, invocations));
+        }
+    }
+
+    private static List<Request> requests(RedisScript script, List<Invocation> invocations) {
+        List<Request> requests = new ArrayList<>(invocations.size());
+        for (Invocation invocation : invocations) {
+            Request request = Request.cmd(Command.EVALSHA);
+            for (String argument : arguments(script.sha(), invocation.keys(), invocation.args())) {
+                request.arg(argument);
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static String[] arguments(String scriptOrSha, List<String> keys, List<String> args) {
+        List<String> arguments = new ArrayList<>(2 + keys.size() + args.size());
+        arguments.add(scriptOrSha);
+        arguments.add(String.valueOf(keys.size()));
+        arguments.addAll(keys);
+        arguments.addAll(args);
+        return arguments.toArray(String[]::new);
+    }
+
+    public record Invocation(List<String> keys, List<String> args) {
+    }
+}
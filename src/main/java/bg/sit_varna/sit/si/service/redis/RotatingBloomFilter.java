@@ -0,0 +1,160 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-partitioned Bloom filter answering "was this seen within the last {@code window}?" with no false
+ * negatives and a bounded false-positive rate.
+ *
+ * <p>The window is split into {@code partitions - 1} slices, each with its own bit array; entries go into
+ * the newest and lookups check all of them. When a slice is over, the oldest array is dropped and a fresh
+ * one started, so an entry is remembered for at least the window and at most one slice longer. Memory stays
+ * fixed no matter how long the service runs.</p>
+ *
+ * <p>Callers pass two independent 64-bit hashes of the entry (e.g. two halves of a SHA-256); the bit
+ * positions are derived from them by double hashing.</p>
+ */
+public class RotatingBloomFilter {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final long sliceMillis;
+    private final int bits;
+    private final int hashes;
+    private volatile Generation[] generations;
+    // Identical entries share a stripe, which is all putIfAbsent needs
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param windowMillis      how long entries must be remembered
+     * @param partitions        bit arrays kept, at least 2
+     * @param expectedEntries   entries expected per window
+     * @param falsePositiveRate target for a lookup across all partitions
+     */
+    public RotatingBloomFilter(long windowMillis, int partitions, long expectedEntries, double falsePositiveRate, long now) {
+        if (windowMillis < 1 || partitions < 2 || expectedEntries < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters");
+        }
+        this.sliceMillis = Math.max(1, windowMillis / (partitions - 1));
+
+        // A lookup may hit in any partition, so each one gets a share of the target rate
+        double rate = falsePositiveRate / partitions;
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(rate) / (ln2 * ln2));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedEntries * ln2));
+
+        Generation[] initial = new Generation[partitions];
+        long start = Math.floorDiv(now, sliceMillis);
+        for (int i = 0; i < partitions; i++) {
+            initial[i] = new Generation(start - i, bits);
+        }
+        this.generations = initial;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public void put(long hash1, long hash2, long now) {
+        Generation current = advance(now)[0];
+        for (int i = 0; i < hashes; i++) {
+            current.set(index(hash1, hash2, i));
+        }
+    }
+
+    /**
+     * @return {@code false} only if the entry was definitely not put within the window
+     */
+    public boolean mightContain(long hash1, long hash2, long now) {
+        for (Generation generation : advance(now)) {
+            if (generation.containsAll(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests and puts the entry as one step, so of several concurrent callers with the same entry
+     * exactly one sees it absent.
+     *
+     * @return {@code true} if every bit of the entry was already set, i.e. {@link #mightContain} held before the put
+     */
+    public boolean putIfAbsent(long hash1, long hash2, long now) {
+        synchronized (locks[(int) Math.floorMod(hash1, (long) LOCK_STRIPES)]) {
+            if (mightContain(hash1, hash2, now)) {
+                return true;
+            }
+            put(hash1, hash2, now);
+            return false;
+        }
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    private Generation[] advance(long now) {
+        Generation[] current = generations;
+        long slice = Math.floorDiv(now, sliceMillis);
+        if (slice <= current[0].slice) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = generations;
+            if (slice > current[0].slice) {
+                Generation[] rotated = new Generation[current.length];
+                long shift = slice - current[0].slice;
+                // Arrays still inside the window move back by the slices that passed; slices nobody wrote to start empty
+                for (int i = 0; i < rotated.length; i++) {
+                    long from = i - shift;
+                    rotated[i] = from >= 0 ? current[(int) from] : new Generation(slice - i, bits);
+                }
+                generations = rotated;
+                current = rotated;
+            }
+            return current;
+        }
+    }
+
+    private int index(long hash1, long hash2, int i) {
+        return (int) Math.floorMod(hash1 + i * hash2, (long) bits);
+    }
+
+    private final class Generation {
+        private final long slice;
+        private final AtomicLongArray words;
+
+        private Generation(long slice, int bits) {
+            this.slice = slice;
+            this.words = new AtomicLongArray((bits + 63) / 64);
+        }
+
+        private void set(int bit) {
+            long mask = 1L << (bit & 63);
+            int word = bit >>> 6;
+            long value;
+            do {
+                value = words.get(word);
+                if ((value & mask) != 0) {
+                    return;
+                }
+            } while (!words.compareAndSet(word, value, value | mask));
+        }
+
+        private boolean containsAll(long hash1, long hash2) {
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(hash1, hash2, i);
+                if ((words.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package bg.sit_varna.sit.si.service.redis;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.sortedset.ScoreRange;
+import io.quarkus.redis.datasource.sortedset.ScoredValue;
+import io.quarkus.redis.datasource.sortedset.SortedSetCommands;
+import io.quarkus.redis.datasource.sortedset.ZRangeArgs;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.List;
+
+/**
+ * Durable index of scheduled notifications: a sorted set of notification ids scored by send time
+ * in epoch milliseconds. The notification itself stays in the database row, so members are tiny
+ * and millions of pending sends cost only a few tens of megabytes.
+ */
+@ApplicationScoped
+public class ScheduledNotificationStore {
+
+    private final SortedSetCommands<String, String> zsetCommands;
+    private final String key;
+
+    @Inject
+    public ScheduledNotificationStore(RedisDataSource dataSource, QueueConfig queueConfig) {
+        this.zsetCommands = dataSource.sortedSet(String.class, String.class);
+        this.key = queueConfig.schedule().key();
+    }
+
+    public void add(String id, long sendAtMillis) {
+        zsetCommands.zadd(key, sendAtMillis, id);
+    }
+
+    /**
+     * @return {@code true} if the id was still pending
+     */
+    public boolean remove(String id) {
+        return zsetCommands.zrem(key, id) > 0;
+    }
+
+    /**
+     * One page of ids due up to {@code maxSendAtMillis}, earliest first.
+     */
+    public List<ScoredValue<String>> dueBefore(long maxSendAtMillis, long offset, int limit) {
+        return zsetCommands.zrangebyscoreWithScores(key,
+                ScoreRange.from(Double.NEGATIVE_INFINITY, (double) maxSendAtMillis),
+                new ZRangeArgs().limit(offset, limit));
+    }
+
+    public long size() {
+        return zsetCommands.zcard(key);
+    }
+}
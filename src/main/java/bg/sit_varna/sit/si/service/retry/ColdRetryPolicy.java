@@ -0,0 +1,39 @@
+package bg.sit_varna.sit.si.service.retry;
+
+import bg.sit_varna.sit.si.config.redis.RedisConfig;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a notification that exhausted its in-memory retries goes back to the cold queue, and when.
+ */
+@ApplicationScoped
+public class ColdRetryPolicy {
+
+    private final int maxAttempts;
+    private final DecorrelatedJitterBackoff backoff;
+
+    @Inject
+    public ColdRetryPolicy(RedisConfig redisConfig) {
+        RedisConfig.RetryConfig config = redisConfig.retry();
+        this.maxAttempts = config.maxAttempts();
+        // ThreadLocalRandom must be looked up on the calling thread, never cached in a shared bean
+        this.backoff = new DecorrelatedJitterBackoff(config.baseDelay().toMillis(), config.maxDelay().toMillis(),
+                () -> ThreadLocalRandom.current().nextLong());
+    }
+
+    public boolean isExhausted(Notification notification) {
+        return notification.getRetryAttempt() >= maxAttempts;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long nextDelayMillis(Notification notification) {
+        return backoff.next(notification.getLastRetryDelay());
+    }
+}
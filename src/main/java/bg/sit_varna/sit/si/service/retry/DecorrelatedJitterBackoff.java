@@ -0,0 +1,36 @@
+package bg.sit_varna.sit.si.service.retry;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * "Decorrelated jitter" exponential backoff: each delay is drawn uniformly from
+ * {@code [base, previous * 3]} and capped. Delays grow roughly exponentially, but two notifications
+ * that failed at the same moment almost never come back at the same moment, so an outage does not
+ * turn into synchronized retry waves.
+ */
+public class DecorrelatedJitterBackoff {
+
+    private final long baseMillis;
+    private final long capMillis;
+    private final RandomGenerator random;
+
+    public DecorrelatedJitterBackoff(long baseMillis, long capMillis, RandomGenerator random) {
+        if (baseMillis <= 0 || capMillis < baseMillis) {
+            throw new IllegalArgumentException("base must be positive and not greater than cap");
+        }
+        this.baseMillis = baseMillis;
+        this.capMillis = capMillis;
+        this.random = random;
+    }
+
+    /**
+     * @param previousMillis the delay used for the previous attempt, or {@code 0} for the first retry
+     */
+    public long next(long previousMillis) {
+        long upper = Math.min(capMillis, Math.max(baseMillis, previousMillis) * 3);
+        if (upper <= baseMillis) {
+            return baseMillis;
+        }
+        return random.nextLong(baseMillis, upper + 1);
+    }
+}
@@ -0,0 +1,76 @@
+package bg.sit_varna.sit.si.service.retry;
+
+import java.util.Optional;
+
+/**
+ * In-memory retry allowance for one delivery of one notification, shared by every {@code @Retry} layer the
+ * delivery passes through (processor and sender).
+ *
+ * <p>The budget is bound to the worker thread for the duration of the delivery. Fault Tolerance runs
+ * synchronous retries, their delays and their {@code @RetryWhen} predicates on the calling thread, so the
+ * predicates of both layers find the same budget. A retry is granted only if the notification has
+ * retries left and the provider it last called has a retry token to spare.</p>
+ */
+public final class RetryBudget {
+
+    private static final ThreadLocal<RetryBudget> CURRENT = new ThreadLocal<>();
+
+    private final RetryBudgets budgets;
+    private int remaining;
+    private String provider;
+
+    RetryBudget(RetryBudgets budgets, int remaining) {
+        this.budgets = budgets;
+        this.remaining = remaining;
+    }
+
+    public static Optional<RetryBudget> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Called for every provider HTTP call; the first call to a provider in this delivery is real traffic
+     * and earns that provider retry tokens.
+     */
+    public static void recordProviderCall(String provider) {
+        RetryBudget budget = CURRENT.get();
+        if (budget != null && !provider.equals(budget.provider)) {
+            budget.provider = provider;
+            budget.budgets.recordAttempt(provider);
+        }
+    }
+
+    /**
+     * Takes one retry if both the notification and its provider can afford it. Without a bound budget
+     * (a sender called outside the processor) retries are left to the {@code @Retry} limits alone.
+     */
+    public static boolean tryAcquire() {
+        RetryBudget budget = CURRENT.get();
+        return budget == null || budget.acquire();
+    }
+
+    public int getRemaining() {
+        return remaining;
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+    }
+
+    private boolean acquire() {
+        if (remaining <= 0) {
+            budgets.recordDenied("notification");
+            return false;
+        }
+        if (provider != null && !budgets.tryWithdraw(provider)) {
+            budgets.recordDenied("provider");
+            return false;
+        }
+        remaining--;
+        return true;
+    }
+}
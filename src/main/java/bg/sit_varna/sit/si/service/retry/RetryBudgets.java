@@ -0,0 +1,77 @@
+package bg.sit_varna.sit.si.service.retry;
+
+import bg.sit_varna.sit.si.config.channel.RetryBudgetConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out a {@link RetryBudget} per delivery and keeps one {@link RetryTokenBucket} per provider, so that
+ * nested {@code @Retry} layers cannot multiply into a burst of provider calls and retries as a whole stay
+ * below {@code retry-budget.ratio} of real traffic.
+ */
+@ApplicationScoped
+public class RetryBudgets {
+
+    private final RetryBudgetConfig config;
+    private final MeterRegistry registry;
+    private final Map<String, RetryTokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Inject
+    public RetryBudgets(RetryBudgetConfig config, MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+    }
+
+    /**
+     * Runs one delivery attempt chain with a fresh per-notification budget bound to the current thread.
+     */
+    public void runWithBudget(Runnable delivery) {
+        if (!config.enabled()) {
+            delivery.run();
+            return;
+        }
+
+        RetryBudget budget = new RetryBudget(this, config.perNotification());
+        budget.bind();
+        try {
+            delivery.run();
+        } finally {
+            budget.unbind();
+        }
+    }
+
+    void recordAttempt(String provider) {
+        bucket(provider).deposit();
+    }
+
+    boolean tryWithdraw(String provider) {
+        return bucket(provider).tryWithdraw();
+    }
+
+    void recordDenied(String scope) {
+        Counter.builder("notification.retry.budget.denied")
+                .description("In-memory retries refused because a retry budget was spent")
+                .tag("scope", scope)
+                .register(registry)
+                .increment();
+    }
+
+    private RetryTokenBucket bucket(String provider) {
+        return buckets.computeIfAbsent(provider, this::createBucket);
+    }
+
+    private RetryTokenBucket createBucket(String provider) {
+        RetryTokenBucket bucket = new RetryTokenBucket(config.ratio(), config.maxTokens());
+        Gauge.builder("notification.retry.budget.tokens", bucket, RetryTokenBucket::getTokens)
+                .description("Retry tokens the provider has left")
+                .tag("provider", provider)
+                .register(registry);
+        return bucket;
+    }
+}
@@ -0,0 +1,35 @@
+package bg.sit_varna.sit.si.service.retry;
+
+/**
+ * How a delivery failure should be retried, as decided by {@link RetryPolicyEngine#classify(Throwable)}.
+ */
+public enum RetryClass {
+
+    /** The request itself is wrong (bad recipient, bad data, missing template); no retry can succeed. */
+    PERMANENT(false, false),
+
+    /** The provider pushed back; retry no sooner than its {@code retry_after}. */
+    THROTTLED(true, true),
+
+    /** Will not clear within seconds (configuration, saturation, open circuit); cold queue only. */
+    DEFERRED(false, true),
+
+    /** Network or provider-side failure; retry right away, then from the cold queue. */
+    TRANSIENT(true, true);
+
+    private final boolean immediateRetry;
+    private final boolean coldRetry;
+
+    RetryClass(boolean immediateRetry, boolean coldRetry) {
+        this.immediateRetry = immediateRetry;
+        this.coldRetry = coldRetry;
+    }
+
+    public boolean allowsImmediateRetry() {
+        return immediateRetry;
+    }
+
+    public boolean allowsColdRetry() {
+        return coldRetry;
+    }
+}
@@ -0,0 +1,18 @@
+package bg.sit_varna.sit.si.service.retry;
+
+import java.time.Duration;
+
+/**
+ * Outcome of {@link RetryPolicyEngine#decideColdRetry}: either a cold retry after {@code delay}, or give up
+ * with {@code reason}.
+ */
+public record RetryDecision(RetryClass retryClass, boolean retry, Duration delay, String reason) {
+
+    public static RetryDecision retryIn(RetryClass retryClass, Duration delay) {
+        return new RetryDecision(retryClass, true, delay, null);
+    }
+
+    public static RetryDecision giveUp(RetryClass retryClass, String reason) {
+        return new RetryDecision(retryClass, false, Duration.ZERO, reason);
+    }
+}
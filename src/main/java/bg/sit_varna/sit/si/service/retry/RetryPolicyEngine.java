@@ -0,0 +1,179 @@
+package bg.sit_varna.sit.si.service.retry;
+
+import bg.sit_varna.sit.si.constant.ErrorCategory;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.exception.exceptions.TelegramPacingException;
+import io.smallrye.faulttolerance.api.CustomBackoffStrategy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Decides, from the error code and category of a failure, whether a send is retried, how long to wait and
+ * whether it may go to the cold queue.
+ *
+ * <p>Classification is static so that the in-memory {@code @Retry} layers can use it through
+ * {@link Immediate} and {@link RetryAfterBackoff}, which Fault Tolerance instantiates itself. The cold
+ * queue decision needs the attempt count and backoff state, so it goes through the bean.</p>
+ */
+@ApplicationScoped
+public class RetryPolicyEngine {
+
+    /**
+     * A throttled call is retried in memory only if the provider asks to wait at most this long;
+     * anything longer would park a worker, so it goes to the cold queue instead.
+     */
+    static final Duration MAX_IMMEDIATE_RETRY_AFTER = Duration.ofSeconds(5);
+
+    private final ColdRetryPolicy coldRetryPolicy;
+
+    @Inject
+    public RetryPolicyEngine(ColdRetryPolicy coldRetryPolicy) {
+        this.coldRetryPolicy = coldRetryPolicy;
+    }
+
+    /**
+     * Called once the in-memory retries are used up (or were skipped) to decide what happens next.
+     */
+    public RetryDecision decideColdRetry(Notification notification, Throwable failure) {
+        RetryClass retryClass = classify(failure);
+        if (!retryClass.allowsColdRetry()) {
+            return RetryDecision.giveUp(retryClass, "Not retryable: " + describe(failure));
+        }
+        if (coldRetryPolicy.isExhausted(notification)) {
+            return RetryDecision.giveUp(retryClass,
+                    "Permanently failed after " + notification.getRetryAttempt() + " cold retries.");
+        }
+
+        long delayMillis = coldRetryPolicy.nextDelayMillis(notification);
+        Optional<Duration> retryAfter = retryAfter(failure);
+        if (retryAfter.isPresent()) {
+            delayMillis = Math.max(delayMillis, retryAfter.get().toMillis());
+        }
+        return RetryDecision.retryIn(retryClass, Duration.ofMillis(delayMillis));
+    }
+
+    public int getMaxColdAttempts() {
+        return coldRetryPolicy.getMaxAttempts();
+    }
+
+    public static RetryClass classify(Throwable failure) {
+        if (failure instanceof NotificationException notificationException) {
+            return classify(notificationException.getErrorCode(), notificationException.getErrorCategory());
+        }
+        if (failure instanceof CircuitBreakerOpenException || failure instanceof BulkheadException) {
+            return RetryClass.DEFERRED;
+        }
+        if (failure instanceof IllegalArgumentException || failure instanceof UnsupportedOperationException) {
+            return RetryClass.PERMANENT;
+        }
+        return RetryClass.TRANSIENT;
+    }
+
+    /**
+     * The category wins where it is decisive; otherwise the HTTP status of the code tells whether the
+     * caller (4xx) or the provider (5xx) is at fault.
+     */
+    public static RetryClass classify(NotificationErrorCode errorCode, ErrorCategory category) {
+        if (category != null) {
+            switch (category) {
+                case VALIDATION -> {
+                    return RetryClass.PERMANENT;
+                }
+                case RATE_LIMIT -> {
+                    return RetryClass.THROTTLED;
+                }
+                case CONFIGURATION -> {
+                    return RetryClass.DEFERRED;
+                }
+                default -> {
+                }
+            }
+        }
+        if (errorCode == null) {
+            return RetryClass.TRANSIENT;
+        }
+
+        Response.Status status = errorCode.getStatus();
+        if (status == Response.Status.TOO_MANY_REQUESTS) {
+            return RetryClass.THROTTLED;
+        }
+        if (status == Response.Status.SERVICE_UNAVAILABLE) {
+            return RetryClass.DEFERRED;
+        }
+        if (status == Response.Status.NOT_IMPLEMENTED
+                || status.getFamily() == Response.Status.Family.CLIENT_ERROR) {
+            return RetryClass.PERMANENT;
+        }
+        return RetryClass.TRANSIENT;
+    }
+
+    public static Optional<Duration> retryAfter(Throwable failure) {
+        if (failure instanceof NotificationException notificationException) {
+            return notificationException.getRetryAfter();
+        }
+        return Optional.empty();
+    }
+
+    public static boolean isImmediatelyRetryable(Throwable failure) {
+        if (failure instanceof TelegramPacingException) {
+            // Our own pacing already knows the slot is further away than the in-memory retries wait
+            return false;
+        }
+        RetryClass retryClass = classify(failure);
+        if (!retryClass.allowsImmediateRetry()) {
+            return false;
+        }
+        return retryAfter(failure)
+                .map(wait -> wait.compareTo(MAX_IMMEDIATE_RETRY_AFTER) <= 0)
+                .orElse(true);
+    }
+
+    private static String describe(Throwable failure) {
+        if (failure instanceof NotificationException notificationException) {
+            return notificationException.getCode() + " " + failure.getMessage();
+        }
+        return failure.getClass().getSimpleName() + " " + failure.getMessage();
+    }
+
+    /**
+     * {@code @RetryWhen(exception = ...)} predicate: retry in memory only what can succeed within seconds,
+     * and only while the delivery's {@link RetryBudget} allows it.
+     */
+    public static final class Immediate implements Predicate<Throwable> {
+
+        @Override
+        public boolean test(Throwable failure) {
+            return isImmediatelyRetryable(failure) && RetryBudget.tryAcquire();
+        }
+    }
+
+    /**
+     * {@code @CustomBackoff} strategy: the configured {@code @Retry} delay, stretched to the provider's
+     * {@code retry_after} when it sent one.
+     */
+    public static final class RetryAfterBackoff implements CustomBackoffStrategy {
+
+        private long delayMillis;
+
+        @Override
+        public void init(long initialDelayInMillis) {
+            this.delayMillis = initialDelayInMillis;
+        }
+
+        @Override
+        public long nextDelayInMillis(Throwable cause) {
+            return retryAfter(cause)
+                    .map(wait -> Math.max(delayMillis, wait.toMillis()))
+                    .orElse(delayMillis);
+        }
+    }
+}
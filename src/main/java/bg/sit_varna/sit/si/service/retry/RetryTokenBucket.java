@@ -0,0 +1,51 @@
+package bg.sit_varna.sit.si.service.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry budget for one provider: every first attempt deposits {@code ratio} tokens, every retry withdraws
+ * one, and the balance never exceeds {@code maxTokens}. Over any long stretch retries therefore stay below
+ * {@code ratio} of real traffic, while the initial reserve still lets an idle provider retry a few blips.
+ *
+ * <p>Tokens are kept in thousandths so that deposits and withdrawals are single CAS updates.</p>
+ */
+public class RetryTokenBucket {
+
+    private static final long SCALE = 1_000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryTokenBucket(double ratio, int maxTokens) {
+        if (ratio < 0 || maxTokens < 1) {
+            throw new IllegalArgumentException("ratio must not be negative and maxTokens must be at least 1");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = maxTokens * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    public void deposit() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+    }
+
+    /**
+     * @return {@code true} if a whole token was available and has been taken
+     */
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    public double getTokens() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,9 @@
+-- V1.1.0__Outbox.sql
+
+-- 1. Columns needed to rebuild a notification from its row (outbox relay)
+ALTER TABLE notifications ADD COLUMN locale VARCHAR(50);
+ALTER TABLE notifications ADD COLUMN message TEXT;
+ALTER TABLE notifications ADD COLUMN priority VARCHAR(50);
+
+-- 2. Relay polls the oldest QUEUED rows
+CREATE INDEX idx_notification_status_created ON notifications(status, created_at);
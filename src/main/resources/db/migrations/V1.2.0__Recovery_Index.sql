@@ -0,0 +1,4 @@
+-- V1.2.0__Recovery_Index.sql
+
+-- Keyset scan for stale QUEUED/PROCESSING rows: WHERE status = ? AND (updated_at, id) > (?, ?) ORDER BY updated_at, id
+CREATE INDEX idx_notification_status_updated ON notifications(status, updated_at, id);
@@ -0,0 +1,4 @@
+-- V1.3.0__Scheduled_Sends.sql
+
+-- Requested delivery time; NULL for immediate sends. The timer itself lives in Redis.
+ALTER TABLE notifications ADD COLUMN send_at TIMESTAMP;
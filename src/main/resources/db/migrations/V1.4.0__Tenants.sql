@@ -0,0 +1,4 @@
+-- V1.4.0__Tenants.sql
+
+-- Product that submitted the notification (see tenants.*); NULL when tenants are disabled
+ALTER TABLE notifications ADD COLUMN tenant VARCHAR(64);
@@ -0,0 +1,4 @@
+-- V1.5.0__Scheduled_Index.sql
+
+-- Keyset scan for SCHEDULED rows coming within the horizon: WHERE status = ? AND send_at < ? AND (send_at, id) > (?, ?) ORDER BY send_at, id
+CREATE INDEX idx_notification_status_send_at ON notifications(status, send_at, id);
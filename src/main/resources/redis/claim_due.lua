@@ -0,0 +1,13 @@
+-- Atomically pops up to ARGV[2] members of the sorted set KEYS[1] scored at or below ARGV[1], together
+-- with their fields in the retry state hash KEYS[2] (absent for members that carry their own payload).
+-- Runs as a single script, so concurrent callers on other replicas always receive disjoint sets.
+-- Returns {claimed members, their states, score of the earliest remaining member or nil}.
+local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+local states = {}
+if #due > 0 then
+    redis.call('ZREM', KEYS[1], unpack(due))
+    states = redis.call('HMGET', KEYS[2], unpack(due))
+    redis.call('HDEL', KEYS[2], unpack(due))
+end
+local head = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+return {due, states, head[2]}
@@ -0,0 +1,31 @@
+-- Reserves the next send slot on every lane in KEYS[2..n] (GCRA without burst: each lane stores the
+-- earliest time its next send may start) while honouring the provider pause kept in KEYS[1].
+-- Time is read from the Redis server so that every pod paces against the same clock.
+-- ARGV: max wait in ms, then the emission interval in ms for each lane.
+-- Returns {reserved (1/0), ms to wait before sending}. Nothing is reserved when the wait exceeds the max.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local maxWait = tonumber(ARGV[1])
+
+local start = now
+local paused = tonumber(redis.call('GET', KEYS[1]))
+if paused and paused > start then
+    start = paused
+end
+for i = 2, #KEYS do
+    local tat = tonumber(redis.call('GET', KEYS[i]))
+    if tat and tat > start then
+        start = tat
+    end
+end
+
+local wait = math.ceil(start - now)
+if wait > maxWait then
+    return {0, wait}
+end
+
+for i = 2, #KEYS do
+    local tat = start + tonumber(ARGV[i])
+    redis.call('SET', KEYS[i], tostring(tat), 'PX', math.ceil(tat - now))
+end
+return {1, wait}
@@ -0,0 +1,13 @@
+-- Pauses a provider for ARGV[1] ms from now, by the Redis server's clock like pace.lua. An earlier
+-- pause never shortens a later one that is already in place.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local duration = tonumber(ARGV[1])
+local untilMillis = now + duration
+
+local current = tonumber(redis.call('GET', KEYS[1]))
+if current and current >= untilMillis then
+    return 0
+end
+redis.call('SET', KEYS[1], tostring(untilMillis), 'PX', duration)
+return 1
@@ -0,0 +1,85 @@
+-- Checks and records one request against the limit kept in KEYS[1], in a single atomic call.
+-- ARGV: algorithm, limit, window in ms, unique member (sliding-log only).
+-- Time is read from the Redis server, so pods with skewed clocks still share one timeline.
+-- Returns {allowed (1/0), remaining, ms until the next request would be allowed (0 if allowed)}.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local algorithm = ARGV[1]
+local limit = tonumber(ARGV[2])
+local window = tonumber(ARGV[3])
+local key = KEYS[1]
+
+if algorithm == 'fixed-window' then
+    -- INCR and the expiry happen together, so a counter can never be left without a TTL
+    local count = redis.call('INCR', key)
+    local ttl = redis.call('PTTL', key)
+    if ttl < 0 then
+        redis.call('PEXPIRE', key, window)
+        ttl = window
+    end
+    if count > limit then
+        return {0, 0, ttl}
+    end
+    return {1, limit - count, 0}
+end
+
+if algorithm == 'sliding-log' then
+    -- Exact: one sorted set entry per request inside the window
+    redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+    local count = redis.call('ZCARD', key)
+    if count >= limit then
+        local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES')
+        return {0, 0, math.max(0, tonumber(oldest[2]) + window - now)}
+    end
+    redis.call('ZADD', key, now, ARGV[4])
+    redis.call('PEXPIRE', key, window)
+    return {1, limit - count - 1, 0}
+end
+
+if algorithm == 'sliding-window' then
+    -- Approximate: the previous fixed window's count, weighted by how much of it still overlaps
+    local current = math.floor(now / window)
+    local elapsed = now - current * window
+    local state = redis.call('HMGET', key, 'w', 'c', 'p')
+    local stored = tonumber(state[1])
+    local count = tonumber(state[2]) or 0
+    local previous = tonumber(state[3]) or 0
+    if stored == nil or stored < current - 1 then
+        count, previous = 0, 0
+    elseif stored == current - 1 then
+        count, previous = 0, count
+    end
+
+    local estimate = previous * (window - elapsed) / window + count
+    if estimate + 1 > limit then
+        local wait = window - elapsed
+        if previous > 0 and count + 1 <= limit then
+            -- The weighted share of the previous window has to shrink by the overshoot
+            wait = math.max(0, window * (1 - (limit - 1 - count) / previous) - elapsed)
+        end
+        return {0, 0, math.ceil(wait)}
+    end
+    redis.call('HSET', key, 'w', current, 'c', count + 1, 'p', previous)
+    redis.call('PEXPIRE', key, window * 2)
+    return {1, math.floor(limit - estimate - 1), 0}
+end
+
+if algorithm == 'token-bucket' then
+    -- Refills limit tokens per window continuously; a full bucket allows a burst of limit
+    local rate = limit / window
+    local state = redis.call('HMGET', key, 't', 'ts')
+    local tokens = tonumber(state[1]) or limit
+    local updated = tonumber(state[2]) or now
+    tokens = math.min(limit, tokens + math.max(0, now - updated) * rate)
+    if tokens < 1 then
+        redis.call('HSET', key, 't', tokens, 'ts', now)
+        redis.call('PEXPIRE', key, window)
+        return {0, 0, math.ceil((1 - tokens) / rate)}
+    end
+    tokens = tokens - 1
+    redis.call('HSET', key, 't', tokens, 'ts', now)
+    redis.call('PEXPIRE', key, window)
+    return {1, math.floor(tokens), 0}
+end
+
+return redis.error_reply('unknown rate limit algorithm ' .. tostring(algorithm))
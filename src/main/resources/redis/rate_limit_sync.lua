@@ -0,0 +1,7 @@
+-- Adds ARGV[1] admissions made locally by one pod to the fixed-window counter KEYS[1] and returns the
+-- cluster-wide total. The expiry is set with the first increment, in the same atomic call.
+local total = redis.call('INCRBY', KEYS[1], ARGV[1])
+if redis.call('PTTL', KEYS[1]) < 0 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return total
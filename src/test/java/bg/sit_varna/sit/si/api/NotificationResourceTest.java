@@ -1,19 +1,25 @@
 package bg.sit_varna.sit.si.api;
 
 import bg.sit_varna.sit.si.BaseIntegrationTest;
+import bg.sit_varna.sit.si.constant.AdmissionStatus;
 import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.dto.request.SendBatchNotificationRequest;
 import bg.sit_varna.sit.si.dto.request.SendNotificationRequest;
+import bg.sit_varna.sit.si.exception.exceptions.QueueOverloadedException;
 import bg.sit_varna.sit.si.service.core.NotificationService;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.List;
 import java.util.Map;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 
 @QuarkusTest
@@ -65,4 +71,90 @@ public class NotificationResourceTest extends BaseIntegrationTest {
                 .statusCode(202)
                 .body("status", equalTo("QUEUED"));
     }
+
+    @Test
+    void testSendEndpoint_QueueOverloaded() {
+        Mockito.doThrow(new QueueOverloadedException("Service Overloaded", "Queue is full", 5))
+                .when(notificationService).dispatchNotification(any());
+
+        SendNotificationRequest request = new SendNotificationRequest(
+                NotificationChannel.EMAIL,
+                "good@email.com",
+                "email/welcome",
+                null,
+                Map.of("name", "Test")
+        );
+
+        given()
+                .contentType("application/json")
+                .body(request)
+                .when()
+                .post("/api/v1/notifications/send")
+                .then()
+                .statusCode(503)
+                .header("Retry-After", equalTo("5"))
+                .body("code", equalTo("NOTIF_067"));
+    }
+
+    @Test
+    void testSendBatchEndpoint_PerItemResults() {
+        Mockito.when(notificationService.dispatchBatch(any()))
+                .thenReturn(List.of(AdmissionStatus.ACCEPTED, AdmissionStatus.DUPLICATE));
+
+        SendNotificationRequest first = new SendNotificationRequest(
+                NotificationChannel.EMAIL, "batch@email.com", "email/welcome", null, Map.of("name", "Test"));
+        SendNotificationRequest second = new SendNotificationRequest(
+                NotificationChannel.EMAIL, "batch@email.com", "email/welcome", null, Map.of("name", "Test"));
+
+        given()
+                .contentType("application/json")
+                .body(new SendBatchNotificationRequest(List.of(first, second)))
+                .when()
+                .post("/api/v1/notifications/send/batch")
+                .then()
+                .statusCode(202)
+                .body("total", equalTo(2))
+                .body("accepted", equalTo(1))
+                .body("results[0].status", equalTo("ACCEPTED"))
+                .body("results[0].notificationId", notNullValue())
+                .body("results[1].status", equalTo("DUPLICATE"))
+                .body("results[1].notificationId", nullValue());
+    }
+
+    @Test
+    void testSendBatchEndpoint_EmptyBatchRejected() {
+        given()
+                .contentType("application/json")
+                .body(new SendBatchNotificationRequest(List.of()))
+                .when()
+                .post("/api/v1/notifications/send/batch")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testSendStreamEndpoint_CountsInvalidLines() {
+        Mockito.when(notificationService.dispatchBatch(any()))
+                .thenReturn(List.of(AdmissionStatus.ACCEPTED, AdmissionStatus.DUPLICATE));
+
+        String body = """
+                {"channel":"SMS","recipient":"+359888123456","message":"Hello"}
+                not json
+                {"channel":"SMS","recipient":"+359888654321","message":"Hello"}
+                """;
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(body)
+                .when()
+                .post("/api/v1/notifications/send/stream")
+                .then()
+                .statusCode(202)
+                .body("totalLines", equalTo(3))
+                .body("accepted", equalTo(1))
+                .body("duplicates", equalTo(1))
+                .body("invalid", equalTo(1))
+                .body("chunks", equalTo(1))
+                .body("errors[0].line", equalTo(2));
+    }
 }
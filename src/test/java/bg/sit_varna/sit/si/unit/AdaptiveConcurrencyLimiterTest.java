@@ -0,0 +1,74 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.service.channel.limit.AdaptiveConcurrencyLimiter;
+import bg.sit_varna.sit.si.service.channel.limit.AdaptiveConcurrencyLimiter.Outcome;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(100);
+
+    AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 0.5, 2.0);
+    }
+
+    @Test
+    void testLimit_GrowsWhileLatencyIsStable() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+            limiter.release(Outcome.SUCCESS, RTT);
+        }
+
+        Assertions.assertTrue(limiter.getLimit() > 4);
+        Assertions.assertTrue(limiter.getLimit() <= 10);
+    }
+
+    @Test
+    void testLimit_CutOnOverload() throws InterruptedException {
+        Assertions.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        limiter.release(Outcome.OVERLOAD, RTT);
+
+        Assertions.assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void testLimit_CutOnLatencySpike() throws InterruptedException {
+        limiter.acquire(0, TimeUnit.MILLISECONDS);
+        limiter.release(Outcome.SUCCESS, RTT);
+
+        limiter.acquire(0, TimeUnit.MILLISECONDS);
+        limiter.release(Outcome.SUCCESS, RTT * 5);
+
+        Assertions.assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void testLimit_NeverBelowMinimum() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(0, TimeUnit.MILLISECONDS);
+            limiter.release(Outcome.OVERLOAD, RTT);
+        }
+
+        Assertions.assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void testAcquire_TimesOutWhenLimitReached() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        }
+
+        Assertions.assertFalse(limiter.acquire(10, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(4, limiter.getInFlight());
+
+        limiter.release(Outcome.IGNORE, RTT);
+        Assertions.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+    }
+}
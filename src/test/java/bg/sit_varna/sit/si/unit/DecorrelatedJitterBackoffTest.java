@@ -0,0 +1,55 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.service.retry.DecorrelatedJitterBackoff;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+class DecorrelatedJitterBackoffTest {
+
+    private static final long BASE = 1_000;
+    private static final long CAP = 60_000;
+
+    @Test
+    void testNext_StaysWithinBaseAndThreeTimesPrevious() {
+        DecorrelatedJitterBackoff backoff = new DecorrelatedJitterBackoff(BASE, CAP, new SplittableRandom(42));
+
+        long previous = 0;
+        for (int i = 0; i < 1_000; i++) {
+            long delay = backoff.next(previous);
+            Assertions.assertTrue(delay >= BASE, "below base: " + delay);
+            Assertions.assertTrue(delay <= Math.min(CAP, Math.max(BASE, previous) * 3), "above bound: " + delay);
+            previous = delay;
+        }
+    }
+
+    @Test
+    void testNext_NeverExceedsCap() {
+        DecorrelatedJitterBackoff backoff = new DecorrelatedJitterBackoff(BASE, CAP, new SplittableRandom(7));
+
+        for (int i = 0; i < 1_000; i++) {
+            Assertions.assertTrue(backoff.next(CAP) <= CAP);
+        }
+    }
+
+    @Test
+    void testNext_SpreadsSimultaneousFailures() {
+        DecorrelatedJitterBackoff backoff = new DecorrelatedJitterBackoff(BASE, CAP, new SplittableRandom(1));
+
+        Set<Long> delays = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            delays.add(backoff.next(10_000));
+        }
+
+        Assertions.assertTrue(delays.size() > 90, "delays are not spread: " + delays.size());
+    }
+
+    @Test
+    void testConstructor_RejectsCapBelowBase() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new DecorrelatedJitterBackoff(BASE, BASE - 1, new SplittableRandom()));
+    }
+}
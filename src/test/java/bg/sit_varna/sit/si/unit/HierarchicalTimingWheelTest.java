@@ -0,0 +1,83 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.service.async.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    HierarchicalTimingWheel<String> wheel;
+
+    @BeforeEach
+    void setup() {
+        // 100 ms ticks, 8 buckets: level spans are 800 ms, 6.4 s, 51.2 s, ...
+        wheel = new HierarchicalTimingWheel<>(100, 8, START);
+    }
+
+    @Test
+    void testAdd_PastDeadlineIsRejected() {
+        Assertions.assertFalse(wheel.add("late", START - 1, "late"));
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvance_FiresAfterTickNeverBefore() {
+        wheel.add("a", START + 250, "a");
+
+        Assertions.assertTrue(wheel.advanceTo(START + 250).isEmpty());
+        Assertions.assertEquals(List.of("a"), wheel.advanceTo(START + 300));
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvance_CascadesFromOverflowLevels() {
+        long[] deadlines = {START + 5_000, START + 900, START + 60_000, START + 120};
+        for (long deadline : deadlines) {
+            wheel.add("t" + deadline, deadline, "t" + deadline);
+        }
+
+        List<Long> firedAt = new ArrayList<>();
+        List<String> order = new ArrayList<>();
+        for (long now = START; now <= START + 61_000; now += 10) {
+            for (String id : wheel.advanceTo(now)) {
+                order.add(id);
+                firedAt.add(now);
+            }
+        }
+
+        Assertions.assertEquals(List.of("t" + (START + 120), "t" + (START + 900),
+                "t" + (START + 5_000), "t" + (START + 60_000)), order);
+        for (int i = 0; i < order.size(); i++) {
+            long deadline = Long.parseLong(order.get(i).substring(1));
+            long delay = firedAt.get(i) - deadline;
+            Assertions.assertTrue(delay >= 0 && delay <= 100, "fired " + delay + " ms after deadline");
+        }
+    }
+
+    @Test
+    void testCancel_RemovesPendingTimer() {
+        wheel.add("keep", START + 3_000, "keep");
+        wheel.add("drop", START + 3_000, "drop");
+
+        Assertions.assertTrue(wheel.cancel("drop"));
+        Assertions.assertFalse(wheel.cancel("drop"));
+
+        Assertions.assertEquals(List.of("keep"), wheel.advanceTo(START + 3_100));
+    }
+
+    @Test
+    void testAdd_SameIdTwiceIsIgnored() {
+        wheel.add("x", START + 500, "first");
+        wheel.add("x", START + 200, "second");
+
+        Assertions.assertEquals(1, wheel.size());
+        Assertions.assertTrue(wheel.advanceTo(START + 300).isEmpty());
+        Assertions.assertEquals(List.of("first"), wheel.advanceTo(START + 600));
+    }
+}
@@ -0,0 +1,96 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.config.channel.BulkheadConfig;
+import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.service.async.LaneScheduler;
+import bg.sit_varna.sit.si.service.channel.ChannelBulkheads;
+import bg.sit_varna.sit.si.service.core.MessageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+class LaneSchedulerTest {
+
+    // Work handed to the executor, run by the test one at a time
+    private final ArrayDeque<Runnable> started = new ArrayDeque<>();
+
+    @Test
+    void testSubmit_StartsImmediatelyWithoutContention() {
+        LaneScheduler scheduler = scheduler(2, Map.of("a", 1));
+
+        CompletableFuture<Void> first = scheduler.submit("a", notification(), () -> {});
+        CompletableFuture<Void> second = scheduler.submit("a", notification(), () -> {});
+
+        Assertions.assertEquals(2, started.size());
+        Assertions.assertEquals(0, scheduler.getQueued());
+        runAll();
+        Assertions.assertTrue(first.isDone());
+        Assertions.assertTrue(second.isDone());
+    }
+
+    @Test
+    void testDispatch_AlternatesBetweenTenants() {
+        List<String> order = processingOrder(Map.of("a", 1, "b", 1), "a", "a", "a", "b");
+
+        Assertions.assertEquals(List.of("a", "b", "a", "a"), order);
+    }
+
+    @Test
+    void testDispatch_SharesByWeight() {
+        List<String> order = processingOrder(Map.of("a", 2, "b", 1), "a", "a", "a", "a", "b", "b");
+
+        Assertions.assertEquals(List.of("a", "a", "b", "a", "a", "b"), order);
+    }
+
+    /**
+     * Queues one notification per entry behind a single busy worker, then lets the work run one at a time.
+     */
+    private List<String> processingOrder(Map<String, Integer> weights, String... tenants) {
+        LaneScheduler scheduler = scheduler(1, weights);
+        scheduler.submit("holder", notification(), () -> {});
+
+        List<String> order = new ArrayList<>();
+        for (String tenant : tenants) {
+            scheduler.submit(tenant, notification(), () -> order.add(tenant));
+        }
+        Assertions.assertEquals(tenants.length, scheduler.getQueued());
+
+        runAll();
+        return order;
+    }
+
+    private void runAll() {
+        while (!started.isEmpty()) {
+            started.pollFirst().run();
+        }
+    }
+
+    private LaneScheduler scheduler(int permits, Map<String, Integer> weights) {
+        BulkheadConfig bulkheadConfig = Mockito.mock(BulkheadConfig.class);
+        Mockito.when(bulkheadConfig.enabled()).thenReturn(false);
+        Mockito.when(bulkheadConfig.email()).thenReturn(Mockito.mock(BulkheadConfig.ChannelLimits.class));
+        Mockito.when(bulkheadConfig.sms()).thenReturn(Mockito.mock(BulkheadConfig.ChannelLimits.class));
+        Mockito.when(bulkheadConfig.telegram()).thenReturn(Mockito.mock(BulkheadConfig.ChannelLimits.class));
+        ChannelBulkheads bulkheads = new ChannelBulkheads(bulkheadConfig, Mockito.mock(MessageService.class),
+                new SimpleMeterRegistry());
+
+        return new LaneScheduler(permits, tenant -> weights.getOrDefault(tenant, 1), bulkheads, started::addLast,
+                (notification, e) -> Assertions.fail("Nothing should be rejected"));
+    }
+
+    private static Notification notification() {
+        return Notification.builder()
+                .recipient("recipient")
+                .channel(NotificationChannel.EMAIL)
+                .message("hello")
+                .build();
+    }
+}
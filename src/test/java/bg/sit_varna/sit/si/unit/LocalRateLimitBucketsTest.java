@@ -0,0 +1,64 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.service.redis.LocalRateLimitBuckets;
+import bg.sit_varna.sit.si.service.redis.LocalRateLimitBuckets.Pending;
+import bg.sit_varna.sit.si.service.redis.LocalRateLimitBuckets.Status;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class LocalRateLimitBucketsTest {
+
+    private static final long WINDOW = 60_000;
+
+    @Test
+    void testTryConsume_RequiresSyncAtTolerance() {
+        LocalRateLimitBuckets buckets = new LocalRateLimitBuckets(4, 0.2);
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals(Status.ALLOWED, buckets.tryConsume("k", 10, WINDOW, 0).status());
+        }
+        Assertions.assertEquals(Status.SYNC_REQUIRED, buckets.tryConsume("k", 10, WINDOW, 0).status());
+    }
+
+    @Test
+    void testSynced_ClusterCountDeniesLocally() {
+        LocalRateLimitBuckets buckets = new LocalRateLimitBuckets(4, 0.2);
+        buckets.tryConsume("k", 10, WINDOW, 1_000);
+
+        List<Pending> pending = buckets.drain(null, 1_000);
+        Assertions.assertEquals(1, pending.size());
+        Assertions.assertEquals(1, pending.get(0).delta());
+
+        // Other pods already used the rest of the window
+        buckets.synced(pending.get(0), 10);
+
+        LocalRateLimitBuckets.Result result = buckets.tryConsume("k", 10, WINDOW, 1_000);
+        Assertions.assertEquals(Status.DENIED, result.status());
+        Assertions.assertEquals(WINDOW - 1_000, result.retryAfterMillis());
+    }
+
+    @Test
+    void testFailed_CountsAreFlushedAgain() {
+        LocalRateLimitBuckets buckets = new LocalRateLimitBuckets(4, 0.5);
+        buckets.tryConsume("k", 10, WINDOW, 0);
+        buckets.tryConsume("k", 10, WINDOW, 0);
+
+        buckets.failed(buckets.drain("k", 0).get(0));
+
+        List<Pending> retried = buckets.drain("k", 0);
+        Assertions.assertEquals(2, retried.get(0).delta());
+        Assertions.assertTrue(buckets.drain("k", 0).isEmpty());
+    }
+
+    @Test
+    void testDrain_EvictsExpiredBuckets() {
+        LocalRateLimitBuckets buckets = new LocalRateLimitBuckets(4, 0.5);
+        buckets.tryConsume("k", 10, WINDOW, 0);
+        buckets.synced(buckets.drain(null, 0).get(0), 1);
+
+        Assertions.assertTrue(buckets.drain(null, WINDOW).isEmpty());
+        Assertions.assertEquals(0, buckets.size());
+    }
+}
@@ -0,0 +1,62 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.service.redis.NotificationFingerprint;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class NotificationFingerprintTest {
+
+    private final NotificationFingerprint fingerprint = new NotificationFingerprint(Map.of("sms/otp", List.of("code")));
+
+    @Test
+    void testOf_DifferentDataDiffers() {
+        Assertions.assertNotEquals(
+                fingerprint.of(otp(Map.of("code", "123456"))),
+                fingerprint.of(otp(Map.of("code", "654321"))));
+    }
+
+    @Test
+    void testOf_IgnoresFieldsOutsideAllowList() {
+        Assertions.assertEquals(
+                fingerprint.of(otp(Map.of("code", "123456", "requestId", "a"))),
+                fingerprint.of(otp(Map.of("code", "123456", "requestId", "b"))));
+    }
+
+    @Test
+    void testOf_IndependentOfKeyOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("firstName", "Ivan");
+        first.put("appName", "My App");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("appName", "My App");
+        second.put("firstName", "Ivan");
+
+        Assertions.assertEquals(fingerprint.of(welcome(first, "en")), fingerprint.of(welcome(second, "en")));
+        Assertions.assertNotEquals(fingerprint.of(welcome(first, "en")), fingerprint.of(welcome(first, "bg")));
+    }
+
+    private static Notification otp(Map<String, Object> data) {
+        return Notification.builder()
+                .channel(NotificationChannel.SMS)
+                .recipient("+359888123456")
+                .templateName("sms/otp")
+                .data(data)
+                .build();
+    }
+
+    private static Notification welcome(Map<String, Object> data, String locale) {
+        return Notification.builder()
+                .channel(NotificationChannel.EMAIL)
+                .recipient("ivan.petrov@example.com")
+                .templateName("email/welcome")
+                .locale(locale)
+                .data(data)
+                .build();
+    }
+}
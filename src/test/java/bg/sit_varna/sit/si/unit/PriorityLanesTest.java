@@ -0,0 +1,177 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.config.app.QueueConfig;
+import bg.sit_varna.sit.si.config.channel.BulkheadConfig;
+import bg.sit_varna.sit.si.config.channel.RetryBudgetConfig;
+import bg.sit_varna.sit.si.constant.NotificationChannel;
+import bg.sit_varna.sit.si.constant.NotificationPriority;
+import bg.sit_varna.sit.si.dto.model.Notification;
+import bg.sit_varna.sit.si.exception.exceptions.NotificationException;
+import bg.sit_varna.sit.si.service.async.NotificationProcessor;
+import bg.sit_varna.sit.si.service.async.PriorityLanes;
+import bg.sit_varna.sit.si.service.channel.ChannelBulkheads;
+import bg.sit_varna.sit.si.service.core.MessageService;
+import bg.sit_varna.sit.si.service.core.TenantService;
+import bg.sit_varna.sit.si.service.retry.RetryBudgets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class PriorityLanesTest {
+
+    static final int LANE_CONCURRENCY = 4;
+
+    NotificationProcessor processor;
+    PriorityLanes lanes;
+    BulkheadConfig.ChannelLimits telegram;
+    CountDownLatch telegramProvider;
+    CountDownLatch noisyTenant;
+    List<String> processed;
+
+    @BeforeEach
+    void setup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        QueueConfig queueConfig = Mockito.mock(QueueConfig.class);
+        QueueConfig.LanesConfig lanesConfig = Mockito.mock(QueueConfig.LanesConfig.class);
+        Mockito.when(queueConfig.lanes()).thenReturn(lanesConfig);
+        Mockito.when(lanesConfig.highPriorityTemplates()).thenReturn(List.of());
+        Mockito.when(lanesConfig.highConcurrency()).thenReturn(LANE_CONCURRENCY);
+        Mockito.when(lanesConfig.normalConcurrency()).thenReturn(LANE_CONCURRENCY);
+
+        telegram = limits(1, 100, Duration.ofSeconds(30));
+        BulkheadConfig.ChannelLimits other = limits(20, 100, Duration.ofSeconds(30));
+        BulkheadConfig bulkheadConfig = Mockito.mock(BulkheadConfig.class);
+        Mockito.when(bulkheadConfig.enabled()).thenReturn(true);
+        Mockito.when(bulkheadConfig.telegram()).thenReturn(telegram);
+        Mockito.when(bulkheadConfig.email()).thenReturn(other);
+        Mockito.when(bulkheadConfig.sms()).thenReturn(other);
+        ChannelBulkheads bulkheads = new ChannelBulkheads(bulkheadConfig, Mockito.mock(MessageService.class), registry);
+
+        RetryBudgetConfig budgetConfig = Mockito.mock(RetryBudgetConfig.class);
+        Mockito.when(budgetConfig.enabled()).thenReturn(false);
+
+        TenantService tenantService = Mockito.mock(TenantService.class);
+        Mockito.when(tenantService.getDefaultTenant()).thenReturn("default");
+        Mockito.when(tenantService.weight(Mockito.anyString())).thenReturn(1);
+
+        // The Telegram provider and the noisy tenant's sends hang until the test lets them go
+        telegramProvider = new CountDownLatch(1);
+        noisyTenant = new CountDownLatch(1);
+        processed = new CopyOnWriteArrayList<>();
+        processor = Mockito.mock(NotificationProcessor.class);
+        Mockito.doAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            if (notification.getChannel() == NotificationChannel.TELEGRAM) {
+                telegramProvider.await();
+            }
+            if ("noisy".equals(notification.getTenant())) {
+                noisyTenant.await();
+            }
+            processed.add(notification.getId());
+            return null;
+        }).when(processor).processNotification(Mockito.any());
+
+        lanes = new PriorityLanes(processor, new RetryBudgets(budgetConfig, registry), bulkheads,
+                tenantService, queueConfig, registry);
+    }
+
+    @AfterEach
+    void teardown() {
+        telegramProvider.countDown();
+        noisyTenant.countDown();
+    }
+
+    @Test
+    void testSubmit_EmailFlowsWhileTelegramSaturated() throws Exception {
+        // Far more Telegram work than the lane has workers
+        for (int i = 0; i < LANE_CONCURRENCY * 5; i++) {
+            lanes.submit(NotificationPriority.NORMAL, notification("tg-" + i, "default", NotificationChannel.TELEGRAM));
+        }
+
+        List<CompletableFuture<Void>> emails = new ArrayList<>();
+        for (int i = 0; i < LANE_CONCURRENCY * 2; i++) {
+            emails.add(lanes.submit(NotificationPriority.NORMAL, notification("email-" + i, "default", NotificationChannel.EMAIL)));
+        }
+
+        CompletableFuture.allOf(emails.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        Mockito.verify(processor, Mockito.times(1)).processNotification(
+                Mockito.argThat(n -> n.getChannel() == NotificationChannel.TELEGRAM));
+    }
+
+    @Test
+    void testSubmit_QuietTenantNotQueuedBehindNoisyBacklog() throws Exception {
+        int backlog = 1000;
+        for (int i = 0; i < backlog; i++) {
+            lanes.submit(NotificationPriority.NORMAL, notification("noisy-" + i, "noisy", NotificationChannel.EMAIL));
+        }
+        CompletableFuture<Void> quiet = lanes.submit(NotificationPriority.NORMAL,
+                notification("quiet", "quiet", NotificationChannel.EMAIL));
+
+        noisyTenant.countDown();
+        quiet.get(5, TimeUnit.SECONDS);
+
+        // The noisy sends already in flight finish first, then the tenants alternate
+        int position = processed.indexOf("quiet");
+        Assertions.assertTrue(position >= 0 && position <= LANE_CONCURRENCY * 2,
+                "Quiet tenant processed at position " + position + " of a " + backlog + " backlog");
+    }
+
+    @Test
+    void testSubmit_WaitingLongerThanMaxWaitGoesToColdQueue() throws Exception {
+        Mockito.when(telegram.maxWait()).thenReturn(Duration.ofMillis(200));
+        Mockito.when(processor.isShuttingDown()).thenReturn(false);
+
+        lanes.submit(NotificationPriority.NORMAL, notification("tg-held", "default", NotificationChannel.TELEGRAM));
+        Notification rejected = notification("tg-rejected", "default", NotificationChannel.TELEGRAM);
+        lanes.submit(NotificationPriority.NORMAL, rejected).get(5, TimeUnit.SECONDS);
+
+        Mockito.verify(processor).fallbackToRedis(Mockito.eq(rejected), Mockito.any(NotificationException.class));
+        Mockito.verify(processor, Mockito.never()).processNotification(rejected);
+    }
+
+    @Test
+    void testSubmit_RejectedWhenTooManyWaitForChannel() throws Exception {
+        Mockito.when(telegram.queueSize()).thenReturn(1);
+        Mockito.when(processor.isShuttingDown()).thenReturn(false);
+
+        // One in flight and one waiting: the bulkhead is full
+        lanes.submit(NotificationPriority.NORMAL, notification("tg-held", "a", NotificationChannel.TELEGRAM));
+        lanes.submit(NotificationPriority.NORMAL, notification("tg-waiting", "b", NotificationChannel.TELEGRAM));
+
+        Notification rejected = notification("tg-rejected", "c", NotificationChannel.TELEGRAM);
+        lanes.submit(NotificationPriority.NORMAL, rejected).get(5, TimeUnit.SECONDS);
+
+        Mockito.verify(processor).fallbackToRedis(Mockito.eq(rejected), Mockito.any(NotificationException.class));
+        Mockito.verify(processor, Mockito.never()).processNotification(rejected);
+    }
+
+    private static BulkheadConfig.ChannelLimits limits(int maxConcurrent, int queueSize, Duration maxWait) {
+        BulkheadConfig.ChannelLimits limits = Mockito.mock(BulkheadConfig.ChannelLimits.class);
+        Mockito.when(limits.maxConcurrent()).thenReturn(maxConcurrent);
+        Mockito.when(limits.queueSize()).thenReturn(queueSize);
+        Mockito.when(limits.maxWait()).thenReturn(maxWait);
+        return limits;
+    }
+
+    private static Notification notification(String id, String tenant, NotificationChannel channel) {
+        return Notification.builder()
+                .id(id)
+                .tenant(tenant)
+                .recipient("recipient")
+                .channel(channel)
+                .message("hello")
+                .build();
+    }
+}
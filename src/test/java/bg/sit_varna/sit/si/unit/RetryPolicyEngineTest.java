@@ -0,0 +1,83 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.constant.ErrorCategory;
+import bg.sit_varna.sit.si.constant.NotificationErrorCode;
+import bg.sit_varna.sit.si.exception.exceptions.EmailSendException;
+import bg.sit_varna.sit.si.exception.exceptions.TelegramPacingException;
+import bg.sit_varna.sit.si.exception.exceptions.TelegramSendException;
+import bg.sit_varna.sit.si.service.retry.RetryClass;
+import bg.sit_varna.sit.si.service.retry.RetryPolicyEngine;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+class RetryPolicyEngineTest {
+
+    @Test
+    void testClassify_InvalidRecipientIsPermanent() {
+        EmailSendException failure = new EmailSendException(
+                NotificationErrorCode.EMAIL_INVALID_RECIPIENT, "title", "detail", "nobody@example");
+
+        Assertions.assertEquals(RetryClass.PERMANENT, RetryPolicyEngine.classify(failure));
+        Assertions.assertFalse(RetryPolicyEngine.isImmediatelyRetryable(failure));
+    }
+
+    @Test
+    void testClassify_KeysOnCategoryBeforeStatus() {
+        Assertions.assertEquals(RetryClass.PERMANENT,
+                RetryPolicyEngine.classify(NotificationErrorCode.SMS_SEND_FAILED, ErrorCategory.VALIDATION));
+        Assertions.assertEquals(RetryClass.THROTTLED,
+                RetryPolicyEngine.classify(NotificationErrorCode.RATE_LIMIT_EXCEEDED, ErrorCategory.RATE_LIMIT));
+        Assertions.assertEquals(RetryClass.TRANSIENT,
+                RetryPolicyEngine.classify(NotificationErrorCode.SMS_SEND_FAILED, ErrorCategory.NOTIFICATION_SENDING));
+        Assertions.assertEquals(RetryClass.DEFERRED,
+                RetryPolicyEngine.classify(NotificationErrorCode.CHANNEL_SATURATED, ErrorCategory.SYSTEM));
+        Assertions.assertEquals(RetryClass.PERMANENT,
+                RetryPolicyEngine.classify(NotificationErrorCode.TEMPLATE_NOT_FOUND, ErrorCategory.TEMPLATE_PROCESSING));
+    }
+
+    @Test
+    void testClassify_NonNotificationFailures() {
+        Assertions.assertEquals(RetryClass.TRANSIENT, RetryPolicyEngine.classify(new IOException("reset")));
+        Assertions.assertEquals(RetryClass.DEFERRED,
+                RetryPolicyEngine.classify(new CircuitBreakerOpenException("open")));
+        Assertions.assertEquals(RetryClass.PERMANENT,
+                RetryPolicyEngine.classify(new UnsupportedOperationException("no strategy")));
+    }
+
+    @Test
+    void testImmediateRetry_OnlyForShortRetryAfter() {
+        TelegramSendException shortWait = rateLimited(Duration.ofSeconds(2));
+        TelegramSendException longWait = rateLimited(Duration.ofSeconds(30));
+
+        Assertions.assertTrue(RetryPolicyEngine.isImmediatelyRetryable(shortWait));
+        Assertions.assertFalse(RetryPolicyEngine.isImmediatelyRetryable(longWait));
+        Assertions.assertTrue(RetryPolicyEngine.classify(longWait).allowsColdRetry());
+    }
+
+    @Test
+    void testImmediateRetry_NeverForLocalPacingDeferral() {
+        TelegramPacingException deferred = new TelegramPacingException("title", "detail", "42", Duration.ofSeconds(2));
+
+        Assertions.assertFalse(RetryPolicyEngine.isImmediatelyRetryable(deferred));
+        Assertions.assertTrue(RetryPolicyEngine.classify(deferred).allowsColdRetry());
+    }
+
+    @Test
+    void testRetryAfterBackoff_StretchesConfiguredDelay() {
+        RetryPolicyEngine.RetryAfterBackoff backoff = new RetryPolicyEngine.RetryAfterBackoff();
+        backoff.init(2_000);
+
+        Assertions.assertEquals(2_000, backoff.nextDelayInMillis(new IOException("reset")));
+        Assertions.assertEquals(4_000, backoff.nextDelayInMillis(rateLimited(Duration.ofSeconds(4))));
+        Assertions.assertEquals(2_000, backoff.nextDelayInMillis(rateLimited(Duration.ofSeconds(1))));
+    }
+
+    private static TelegramSendException rateLimited(Duration retryAfter) {
+        return new TelegramSendException(NotificationErrorCode.TELEGRAM_RATE_LIMITED,
+                "title", "Too Many Requests", "42", retryAfter);
+    }
+}
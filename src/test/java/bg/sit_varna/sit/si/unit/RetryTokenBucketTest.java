@@ -0,0 +1,44 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.service.retry.RetryTokenBucket;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RetryTokenBucketTest {
+
+    @Test
+    void testTryWithdraw_StartsWithFullReserve() {
+        RetryTokenBucket bucket = new RetryTokenBucket(0.1, 3);
+
+        Assertions.assertTrue(bucket.tryWithdraw());
+        Assertions.assertTrue(bucket.tryWithdraw());
+        Assertions.assertTrue(bucket.tryWithdraw());
+        Assertions.assertFalse(bucket.tryWithdraw());
+    }
+
+    @Test
+    void testTryWithdraw_RetriesStayBelowRatioOfTraffic() {
+        RetryTokenBucket bucket = new RetryTokenBucket(0.1, 1);
+        Assertions.assertTrue(bucket.tryWithdraw());
+
+        int retries = 0;
+        for (int i = 0; i < 1_000; i++) {
+            bucket.deposit();
+            // Every request fails and asks for a retry
+            if (bucket.tryWithdraw()) {
+                retries++;
+            }
+        }
+        Assertions.assertEquals(100, retries);
+    }
+
+    @Test
+    void testDeposit_CappedAtMaxTokens() {
+        RetryTokenBucket bucket = new RetryTokenBucket(0.5, 2);
+
+        for (int i = 0; i < 100; i++) {
+            bucket.deposit();
+        }
+        Assertions.assertEquals(2.0, bucket.getTokens());
+    }
+}
@@ -0,0 +1,89 @@
+package bg.sit_varna.sit.si.unit;
+
+import bg.sit_varna.sit.si.service.redis.RotatingBloomFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RotatingBloomFilterTest {
+
+    private static final long WINDOW = 300_000;
+
+    @Test
+    void testMightContain_NoFalseNegativesWithinWindow() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(WINDOW, 3, 10_000, 0.01, 0);
+        SplittableRandom random = new SplittableRandom(1);
+        long[][] entries = new long[5_000][2];
+        for (long[] entry : entries) {
+            entry[0] = random.nextLong();
+            entry[1] = random.nextLong();
+            filter.put(entry[0], entry[1], 1_000);
+        }
+
+        for (long[] entry : entries) {
+            Assertions.assertTrue(filter.mightContain(entry[0], entry[1], 1_000 + WINDOW - 1));
+        }
+    }
+
+    @Test
+    void testMightContain_ForgetsAfterWindow() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(WINDOW, 2, 1_000, 0.01, 0);
+        filter.put(42, 7, 0);
+
+        Assertions.assertTrue(filter.mightContain(42, 7, WINDOW - 1));
+        Assertions.assertFalse(filter.mightContain(42, 7, 2 * WINDOW));
+    }
+
+    @Test
+    void testMightContain_FalsePositiveRateWithinTarget() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(WINDOW, 2, 10_000, 0.01, 0);
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(random.nextLong(), random.nextLong(), 0);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(random.nextLong(), random.nextLong(), 0)) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testPutIfAbsent_OnlyOneConcurrentCallerSeesEntryAbsent() throws Exception {
+        RotatingBloomFilter filter = new RotatingBloomFilter(WINDOW, 3, 10_000, 0.01, 0);
+        int callers = 32;
+
+        for (int round = 0; round < 200; round++) {
+            long hash1 = round * 31L + 5;
+            long hash2 = round * 17L + 3;
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger absent = new AtomicInteger();
+
+            try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+                for (int i = 0; i < callers; i++) {
+                    executor.submit(() -> {
+                        start.await();
+                        if (!filter.putIfAbsent(hash1, hash2, 1_000)) {
+                            absent.incrementAndGet();
+                        }
+                        return null;
+                    });
+                }
+                start.countDown();
+                executor.shutdown();
+                Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            }
+
+            Assertions.assertEquals(1, absent.get(), "callers that saw entry " + round + " as new");
+        }
+    }
+}